@@ -1,5 +1,8 @@
 package uconn.utils.pid;
 
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.detector.base.DetectorType;
+
 public class Candidate {
     /*! \mainpage java classes with PID functions
      * \section Introduction
@@ -31,39 +34,142 @@ public class Candidate {
     }
 
 
+    /** A copy constructor, all decoded quantities are copied from other candidate
+     * @param other candidate to copy from
+     */
+    public Candidate(Candidate other) {
+        this.ipart = other.ipart;
+        this.field = other.field;
+        this.mask = other.mask;
+        this.nphe = other.nphe;
+        this.pcal_sector = other.pcal_sector;
+        this.pcal_energy = other.pcal_energy;
+        this.ecin_energy = other.ecin_energy;
+        this.ecout_energy = other.ecout_energy;
+        this.pcal_lv = other.pcal_lv;
+        this.pcal_lw = other.pcal_lw;
+        this.pcal_x = other.pcal_x;
+        this.pcal_y = other.pcal_y;
+        this.pcal_z = other.pcal_z;
+        this.p = other.p;
+        this.px = other.px;
+        this.py = other.py;
+        this.pz = other.pz;
+        this.vz = other.vz;
+        this.beta = other.beta;
+        this.chi2pid = other.chi2pid;
+        this.dvz = other.dvz;
+        this.traj_x1 = other.traj_x1;
+        this.traj_y1 = other.traj_y1;
+        this.traj_z1 = other.traj_z1;
+        this.traj_x2 = other.traj_x2;
+        this.traj_y2 = other.traj_y2;
+        this.traj_z2 = other.traj_z2;
+        this.traj_x3 = other.traj_x3;
+        this.traj_y3 = other.traj_y3;
+        this.traj_z3 = other.traj_z3;
+        this.pid = other.pid;
+        this.dc_sector = other.dc_sector;
+        this.status = other.status;
+        if(other.has(HAS_DC_SECTOR)) this.geometry = other.getGeometry();
+    }
+
+
+    /*
+     * Decoded quantities are stored in primitive fields.
+     * A field holds a valid value only if its bit is set in the mask,
+     * cuts test all the bits they need at once and getters return null for unset fields.
+     */
+    protected static final long HAS_NPHE = 1L<<0; ///< nphe is set
+    protected static final long HAS_PCAL_SECTOR = 1L<<1; ///< pcal_sector is set
+    protected static final long HAS_PCAL_ENERGY = 1L<<2; ///< pcal_energy is set
+    protected static final long HAS_ECIN_ENERGY = 1L<<3; ///< ecin_energy is set
+    protected static final long HAS_ECOUT_ENERGY = 1L<<4; ///< ecout_energy is set
+    protected static final long HAS_PCAL_LV = 1L<<5; ///< pcal_lv is set
+    protected static final long HAS_PCAL_LW = 1L<<6; ///< pcal_lw is set
+    protected static final long HAS_PCAL_X = 1L<<7; ///< pcal_x is set
+    protected static final long HAS_PCAL_Y = 1L<<8; ///< pcal_y is set
+    protected static final long HAS_PCAL_Z = 1L<<9; ///< pcal_z is set
+    protected static final long HAS_P = 1L<<10; ///< p is set
+    protected static final long HAS_PX = 1L<<11; ///< px is set
+    protected static final long HAS_PY = 1L<<12; ///< py is set
+    protected static final long HAS_PZ = 1L<<13; ///< pz is set
+    protected static final long HAS_VZ = 1L<<14; ///< vz is set
+    protected static final long HAS_BETA = 1L<<15; ///< beta is set
+    protected static final long HAS_CHI2PID = 1L<<16; ///< chi2pid is set
+    protected static final long HAS_DVZ = 1L<<17; ///< dvz is set
+    protected static final long HAS_TRAJ_X1 = 1L<<18; ///< traj_x1 is set
+    protected static final long HAS_TRAJ_Y1 = 1L<<19; ///< traj_y1 is set
+    protected static final long HAS_TRAJ_Z1 = 1L<<20; ///< traj_z1 is set
+    protected static final long HAS_TRAJ_X2 = 1L<<21; ///< traj_x2 is set
+    protected static final long HAS_TRAJ_Y2 = 1L<<22; ///< traj_y2 is set
+    protected static final long HAS_TRAJ_Z2 = 1L<<23; ///< traj_z2 is set
+    protected static final long HAS_TRAJ_X3 = 1L<<24; ///< traj_x3 is set
+    protected static final long HAS_TRAJ_Y3 = 1L<<25; ///< traj_y3 is set
+    protected static final long HAS_TRAJ_Z3 = 1L<<26; ///< traj_z3 is set
+    protected static final long HAS_PID = 1L<<27; ///< pid is set
+    protected static final long HAS_DC_SECTOR = 1L<<28; ///< dc_sector is set
+    protected static final long HAS_STATUS = 1L<<29; ///< status is set
+
+    protected static final long HAS_PXYZ = HAS_PX | HAS_PY | HAS_PZ; ///< px, py and pz are set
+    protected static final long HAS_TRAJ1 = HAS_TRAJ_X1 | HAS_TRAJ_Y1 | HAS_TRAJ_Z1; ///< DC region 1 position is set
+    protected static final long HAS_TRAJ2 = HAS_TRAJ_X2 | HAS_TRAJ_Y2 | HAS_TRAJ_Z2; ///< DC region 2 position is set
+    protected static final long HAS_TRAJ3 = HAS_TRAJ_X3 | HAS_TRAJ_Y3 | HAS_TRAJ_Z3; ///< DC region 3 position is set
+
+
     public final int ipart;
 
     protected MagField field = MagField.INBENDING; ///< magnetic field, INBENDING by default
-    protected Float nphe = null; ///< number of photoelectrons
-    protected Integer pcal_sector = null; ///< pcal sector
-    protected Float pcal_energy = null; ///< energy deposited in PCAL
-    protected Float ecin_energy = 0f; ///< energy deposited in ECin
-    protected Float ecout_energy = 0f; ///< energy deposited in ECout
-    protected Float pcal_lv = null; ///< distance on V-side
-    protected Float pcal_lw = null; ///< distance on W-side
-    protected Float pcal_x = null; ///< X from PCAL
-    protected Float pcal_y = null; ///< Y from PCAL
-    protected Float pcal_z = null; ///< Z from PCAL
-    protected Float p = null; ///< momentum
-    protected Float px = null; ///< px momentum
-    protected Float py = null; ///< px momentum
-    protected Float pz = null; ///< px momentum
-    protected Float vz = null; ///< z vertex
-    protected Float beta = null; ///< beta value
-    protected Float chi2pid = null; ///< chi2pid value
-    protected Float dvz = null; ///< the difference between trigger particle vz and candidate vz
-    protected Float traj_x1 = null; ///< x-position of the track at the detector surface (cm) at region 1
-    protected Float traj_y1 = null; ///< y-position of the track at the detector surface (cm) at region 1
-    protected Float traj_z1 = null; ///< z-position of the track at the detector surface (cm) at region 1
-    protected Float traj_x2 = null; ///< x-position of the track at the detector surface (cm) at region 2
-    protected Float traj_y2 = null; ///< y-position of the track at the detector surface (cm) at region 2
-    protected Float traj_z2 = null; ///< z-position of the track at the detector surface (cm) at region 2
-    protected Float traj_x3 = null; ///< x-position of the track at the detector surface (cm) at region 3
-    protected Float traj_y3 = null; ///< y-position of the track at the detector surface (cm) at region 3
-    protected Float traj_z3 = null; ///< z-position of the track at the detector surface (cm) at region 3
-    protected Integer pid = null; ///< particle PID
-    protected Integer dc_sector = null; ///< dc sector
-    protected Short status = null; ///< particle status
+    protected long mask = HAS_ECIN_ENERGY | HAS_ECOUT_ENERGY; ///< bits of the fields which are set, ECin and ECout energies are 0 by default
+    protected float nphe; ///< number of photoelectrons
+    protected int pcal_sector; ///< pcal sector
+    protected float pcal_energy; ///< energy deposited in PCAL
+    protected float ecin_energy = 0f; ///< energy deposited in ECin
+    protected float ecout_energy = 0f; ///< energy deposited in ECout
+    protected float pcal_lv; ///< distance on V-side
+    protected float pcal_lw; ///< distance on W-side
+    protected float pcal_x; ///< X from PCAL
+    protected float pcal_y; ///< Y from PCAL
+    protected float pcal_z; ///< Z from PCAL
+    protected float p; ///< momentum
+    protected float px; ///< px momentum
+    protected float py; ///< px momentum
+    protected float pz; ///< px momentum
+    protected float vz; ///< z vertex
+    protected float beta; ///< beta value
+    protected float chi2pid; ///< chi2pid value
+    protected float dvz; ///< the difference between trigger particle vz and candidate vz
+    protected float traj_x1; ///< x-position of the track at the detector surface (cm) at region 1
+    protected float traj_y1; ///< y-position of the track at the detector surface (cm) at region 1
+    protected float traj_z1; ///< z-position of the track at the detector surface (cm) at region 1
+    protected float traj_x2; ///< x-position of the track at the detector surface (cm) at region 2
+    protected float traj_y2; ///< y-position of the track at the detector surface (cm) at region 2
+    protected float traj_z2; ///< z-position of the track at the detector surface (cm) at region 2
+    protected float traj_x3; ///< x-position of the track at the detector surface (cm) at region 3
+    protected float traj_y3; ///< y-position of the track at the detector surface (cm) at region 3
+    protected float traj_z3; ///< z-position of the track at the detector surface (cm) at region 3
+    protected int pid; ///< particle PID
+    protected int dc_sector; ///< dc sector
+    private TrackGeometry geometry = null; ///< DC geometry computed from dc_sector and traj positions, shared with copies, null until requested
+    protected short status; ///< particle status
+
+
+    /**
+     * @param fields bits of the fields to test
+     * @return true if all of the fields are set
+     */
+    protected final boolean has(long fields) {
+        return (mask & fields) == fields;
+    }
+
+
+    /**
+     * set or clear the bit of a field depending on whether a value was given
+     */
+    private void mark(long field, Number value) {
+        if(value==null) mask &= ~field;
+        else mask |= field;
+    }
 
 
     /**
@@ -82,17 +188,50 @@ public class Candidate {
     }
 
 
+    /**
+     * @return true for inbending magnetic field, false for outbending
+     */
+    public boolean isInbending() {
+        return field == MagField.INBENDING;
+    }
+
+
+    /**
+     * @param px set px momentum
+     * @param py set py momentum
+     * @param pz set pz momentum
+     */
+    public void setPxyz(float px, float py, float pz) {
+        this.px = px;
+        this.py = py;
+        this.pz = pz;
+        this.p = (float) Math.sqrt(px*px + py*py + pz*pz);
+        mask |= HAS_PXYZ | HAS_P;
+    }
+
+
     /**
      * @param px set px momentum
      * @param py set py momentum
      * @param pz set pz momentum
      */
     public void setPxyz(Number px, Number py, Number pz) {
-        this.px = px==null ? null : px.floatValue();
-        this.py = py==null ? null : py.floatValue();
-        this.pz = pz==null ? null : pz.floatValue();
-        if(this.px!=null && this.py!=null && this.pz!=null)
-            this.p = (float) Math.sqrt(this.px*this.px + this.py*this.py + this.pz*this.pz);
+        if(px!=null) this.px = px.floatValue();
+        if(py!=null) this.py = py.floatValue();
+        if(pz!=null) this.pz = pz.floatValue();
+        mark(HAS_PX, px);
+        mark(HAS_PY, py);
+        mark(HAS_PZ, pz);
+        if(has(HAS_PXYZ)) setPxyz(this.px, this.py, this.pz);
+    }
+
+
+    /**
+     * @param vz set vertex z position
+     */
+    public void setVZ(float vz) {
+        this.vz = vz;
+        mask |= HAS_VZ;
     }
 
 
@@ -100,7 +239,17 @@ public class Candidate {
      * @param vz set vertex z position
      */
     public void setVZ(Number vz) {
-        this.vz = vz==null ? null : vz.floatValue();
+        if(vz!=null) this.vz = vz.floatValue();
+        mark(HAS_VZ, vz);
+    }
+
+
+    /**
+     * @param beta set beta value for particle
+     */
+    public void setBETA(float beta) {
+        this.beta = beta;
+        mask |= HAS_BETA;
     }
 
 
@@ -108,7 +257,17 @@ public class Candidate {
      * @param beta set beta value for particle
      */
     public void setBETA(Number beta) {
-        this.beta = beta==null ? null : beta.floatValue();
+        if(beta!=null) this.beta = beta.floatValue();
+        mark(HAS_BETA, beta);
+    }
+
+
+    /**
+     * @param chi2pid set chi2pid value
+     */
+    public void setCHI2PID(float chi2pid) {
+        this.chi2pid = chi2pid;
+        mask |= HAS_CHI2PID;
     }
 
 
@@ -116,7 +275,17 @@ public class Candidate {
      * @param chi2pid set chi2pid value
      */
     public void setCHI2PID(Number chi2pid) {
-        this.chi2pid = chi2pid==null ? null : chi2pid.floatValue();
+        if(chi2pid!=null) this.chi2pid = chi2pid.floatValue();
+        mark(HAS_CHI2PID, chi2pid);
+    }
+
+
+    /**
+     * @param dvz set the difference between vertex z position of candidate and trigger particle
+     */
+    public void setDVZ(float dvz) {
+        this.dvz = dvz;
+        mask |= HAS_DVZ;
     }
 
 
@@ -124,7 +293,17 @@ public class Candidate {
      * @param dvz set the difference between vertex z position of candidate and trigger particle
      */
     public void setDVZ(Number dvz) {
-        this.dvz = dvz==null ? null : dvz.floatValue();
+        if(dvz!=null) this.dvz = dvz.floatValue();
+        mark(HAS_DVZ, dvz);
+    }
+
+
+    /**
+     * @param pid set particle PID
+     */
+    public void setPID(int pid) {
+        this.pid = pid;
+        mask |= HAS_PID;
     }
 
 
@@ -132,7 +311,17 @@ public class Candidate {
      * @param pid set particle PID
      */
     public void setPID(Number pid) {
-        this.pid = pid==null ? null : pid.intValue();
+        if(pid!=null) this.pid = pid.intValue();
+        mark(HAS_PID, pid);
+    }
+
+
+    /**
+     * @param status set particle status
+     */
+    public void setStatus(int status) {
+        this.status = (short) status;
+        mask |= HAS_STATUS;
     }
 
 
@@ -140,7 +329,17 @@ public class Candidate {
      * @param status set particle status
      */
     public void setStatus(Number status) {
-        this.status = status==null ? null : status.shortValue();
+        if(status!=null) this.status = status.shortValue();
+        mark(HAS_STATUS, status);
+    }
+
+
+    /**
+     * @param nphe set number of photoelectrons
+     */
+    public void setNPHE(float nphe) {
+        this.nphe = nphe;
+        mask |= HAS_NPHE;
     }
 
 
@@ -148,7 +347,17 @@ public class Candidate {
      * @param nphe set number of photoelectrons
      */
     public void setNPHE(Number nphe) {
-        this.nphe = nphe==null ? null : nphe.floatValue();
+        if(nphe!=null) this.nphe = nphe.floatValue();
+        mark(HAS_NPHE, nphe);
+    }
+
+
+    /**
+     * @param sector set PCAL sector
+     */
+    public void setPCALsector(int sector) {
+        this.pcal_sector = sector;
+        mask |= HAS_PCAL_SECTOR;
     }
 
 
@@ -156,7 +365,17 @@ public class Candidate {
      * @param sector set PCAL sector
      */
     public void setPCALsector(Number sector) {
-        this.pcal_sector = sector==null ? null : sector.intValue();
+        if(sector!=null) this.pcal_sector = sector.intValue();
+        mark(HAS_PCAL_SECTOR, sector);
+    }
+
+
+    /**
+     * @param energy set PCAL energy
+     */
+    public void setPCALenergy(float energy) {
+        this.pcal_energy = energy;
+        mask |= HAS_PCAL_ENERGY;
     }
 
 
@@ -164,7 +383,17 @@ public class Candidate {
      * @param energy set PCAL energy
      */
     public void setPCALenergy(Number energy) {
-        this.pcal_energy = energy==null ? null : energy.floatValue();
+        if(energy!=null) this.pcal_energy = energy.floatValue();
+        mark(HAS_PCAL_ENERGY, energy);
+    }
+
+
+    /**
+     * @param energy set ECIN energy
+     */
+    public void setECINenergy(float energy) {
+        this.ecin_energy = energy;
+        mask |= HAS_ECIN_ENERGY;
     }
 
 
@@ -172,7 +401,17 @@ public class Candidate {
      * @param energy set ECIN energy
      */
     public void setECINenergy(Number energy) {
-        this.ecin_energy = energy==null ? null : energy.floatValue();
+        if(energy!=null) this.ecin_energy = energy.floatValue();
+        mark(HAS_ECIN_ENERGY, energy);
+    }
+
+
+    /**
+     * @param energy set ECOUT energy
+     */
+    public void setECOUTenergy(float energy) {
+        this.ecout_energy = energy;
+        mask |= HAS_ECOUT_ENERGY;
     }
 
 
@@ -180,7 +419,19 @@ public class Candidate {
      * @param energy set ECOUT energy
      */
     public void setECOUTenergy(Number energy) {
-        this.ecout_energy = energy==null ? null : energy.floatValue();
+        if(energy!=null) this.ecout_energy = energy.floatValue();
+        mark(HAS_ECOUT_ENERGY, energy);
+    }
+
+
+    /**
+     * @param lv set PCAL lv
+     * @param lw set PCAL lw
+     */
+    public void setPCALvw(float lv, float lw) {
+        this.pcal_lv = lv;
+        this.pcal_lw = lw;
+        mask |= HAS_PCAL_LV | HAS_PCAL_LW;
     }
 
 
@@ -189,8 +440,23 @@ public class Candidate {
      * @param lw set PCAL lw
      */
     public void setPCALvw(Number lv, Number lw) {
-        this.pcal_lv = lv==null ? null : lv.floatValue();
-        this.pcal_lw = lw==null ? null : lw.floatValue();
+        if(lv!=null) this.pcal_lv = lv.floatValue();
+        if(lw!=null) this.pcal_lw = lw.floatValue();
+        mark(HAS_PCAL_LV, lv);
+        mark(HAS_PCAL_LW, lw);
+    }
+
+
+    /**
+     * @param x set PCAL x
+     * @param y set PCAL y
+     * @param z set PCAL z
+     */
+    public void setPCALxyz(float x, float y, float z) {
+        this.pcal_x = x;
+        this.pcal_y = y;
+        this.pcal_z = z;
+        mask |= HAS_PCAL_X | HAS_PCAL_Y | HAS_PCAL_Z;
     }
 
 
@@ -200,9 +466,20 @@ public class Candidate {
      * @param z set PCAL z
      */
     public void setPCALxyz(Number x, Number y, Number z) {
-        this.pcal_x = x==null ? null : x.floatValue();
-        this.pcal_y = y==null ? null : y.floatValue();
-        this.pcal_z = z==null ? null : z.floatValue();
+        if(x!=null) this.pcal_x = x.floatValue();
+        if(y!=null) this.pcal_y = y.floatValue();
+        if(z!=null) this.pcal_z = z.floatValue();
+        mark(HAS_PCAL_X, x);
+        mark(HAS_PCAL_Y, y);
+        mark(HAS_PCAL_Z, z);
+    }
+
+
+    /**
+     * @return PDG code from REC::Particle
+     */
+    public Integer getPID() {
+        return has(HAS_PID) ? pid : null;
     }
 
 
@@ -210,7 +487,7 @@ public class Candidate {
      * @return pcal sector
      */
     public Integer getPCALsector() {
-        return pcal_sector;
+        return has(HAS_PCAL_SECTOR) ? pcal_sector : null;
     }
 
 
@@ -218,7 +495,7 @@ public class Candidate {
      * @return dc sector
      */
     public Integer getDCsector() {
-        return dc_sector;
+        return has(HAS_DC_SECTOR) ? dc_sector : null;
     }
 
 
@@ -226,7 +503,7 @@ public class Candidate {
      * @return DC1 x
      */
     public Float getDC1x() {
-        return traj_x1;
+        return has(HAS_TRAJ_X1) ? traj_x1 : null;
     }
 
  
@@ -234,7 +511,7 @@ public class Candidate {
      * @return DC1 y
      */
     public Float getDC1y() {
-        return traj_y1;
+        return has(HAS_TRAJ_Y1) ? traj_y1 : null;
     }
 
  
@@ -242,28 +519,45 @@ public class Candidate {
      * @return DC1 z
      */
     public Float getDC1z() {
-        return traj_z1;
+        return has(HAS_TRAJ_Z1) ? traj_z1 : null;
     }
 
  
     /**
-     * determine DC sector
+     * update DC sector from region 2 position
+     */
+    private void setDCsector() {
+        geometry = null;
+        dc_sector = SectorGeometry.sector(traj_x2, traj_y2);
+        if(dc_sector==0) mask &= ~HAS_DC_SECTOR;
+        else mask |= HAS_DC_SECTOR;
+    }
+
+    /**
+     * @param region specify DC region
      * @param x x-coordinate in DC region
      * @param y y-coordinate in DC region
      * @param z z-coordinate in DC region
      */
-    private Integer getDCsector(Float x, Float y, Float z) {
-        double rr = Math.sqrt(x*x+y*x+z*z);
-        double phi = Math.toDegrees(Math.atan2(y/rr, x/rr));
-
-        if(phi < 30 && phi >= -30) return 1;
-        else if(phi < 90 && phi >= 30) return 2;
-        else if(phi < 150 && phi >= 90) return 3;
-        else if(phi >= 150 || phi < -150) return 4;
-        else if(phi < -90 && phi >= -150) return 5;
-        else if(phi < -30 && phi >= -90) return 6;
-
-        return null;
+    public void setDCxyz(int region, float x, float y, float z) {
+        geometry = null;
+        if(region==1) {
+            this.traj_x1 = x;
+            this.traj_y1 = y;
+            this.traj_z1 = z;
+            mask |= HAS_TRAJ1;
+        } else if(region==2) {
+            this.traj_x2 = x;
+            this.traj_y2 = y;
+            this.traj_z2 = z;
+            mask |= HAS_TRAJ2;
+            setDCsector();
+        } else if(region==3) {
+            this.traj_x3 = x;
+            this.traj_y3 = y;
+            this.traj_z3 = z;
+            mask |= HAS_TRAJ3;
+        }
     }
 
     /**
@@ -273,21 +567,91 @@ public class Candidate {
      * @param z z-coordinate in DC region
      */
     public void setDCxyz(int region, Number x, Number y, Number z) {
+        geometry = null;
         if(region==1) {
-            this.traj_x1 = x==null ? null : x.floatValue();
-            this.traj_y1 = y==null ? null : y.floatValue();
-            this.traj_z1 = z==null ? null : z.floatValue();
+            if(x!=null) this.traj_x1 = x.floatValue();
+            if(y!=null) this.traj_y1 = y.floatValue();
+            if(z!=null) this.traj_z1 = z.floatValue();
+            mark(HAS_TRAJ_X1, x);
+            mark(HAS_TRAJ_Y1, y);
+            mark(HAS_TRAJ_Z1, z);
         } else if(region==2) {
-            this.traj_x2 = x==null ? null : x.floatValue();
-            this.traj_y2 = y==null ? null : y.floatValue();
-            this.traj_z2 = z==null ? null : z.floatValue();
-            if(traj_x2!=null && traj_y2!=null && traj_z2!=null) this.dc_sector = getDCsector(traj_x2, traj_y2, traj_z2);
+            if(x!=null) this.traj_x2 = x.floatValue();
+            if(y!=null) this.traj_y2 = y.floatValue();
+            if(z!=null) this.traj_z2 = z.floatValue();
+            mark(HAS_TRAJ_X2, x);
+            mark(HAS_TRAJ_Y2, y);
+            mark(HAS_TRAJ_Z2, z);
+            if(has(HAS_TRAJ2)) setDCsector();
         } else if(region==3) {
-            this.traj_x3 = x==null ? null : x.floatValue();
-            this.traj_y3 = y==null ? null : y.floatValue();
-            this.traj_z3 = z==null ? null : z.floatValue();
+            if(x!=null) this.traj_x3 = x.floatValue();
+            if(y!=null) this.traj_y3 = y.floatValue();
+            if(z!=null) this.traj_z3 = z.floatValue();
+            mark(HAS_TRAJ_X3, x);
+            mark(HAS_TRAJ_Y3, y);
+            mark(HAS_TRAJ_Z3, z);
         }
     }
 
 
+    /**
+     * set DC positions for regions 1, 2 and 3 from trajectory bank
+     * @param trajbank trajectory bank
+     * @param index event index built over the same trajectory bank
+     */
+    public void setDCxyz(Bank trajbank, EventIndex index) {
+        Columns.Traj col = Columns.Traj.of(trajbank);
+        int itraj = index.getTrajRow(ipart, DetectorType.DC.getDetectorId(), 6);
+        if(itraj>=0) setDCxyz(1, trajbank.getFloat(col.x,itraj), trajbank.getFloat(col.y,itraj), trajbank.getFloat(col.z,itraj));
+        itraj = index.getTrajRow(ipart, DetectorType.DC.getDetectorId(), 18);
+        if(itraj>=0) setDCxyz(2, trajbank.getFloat(col.x,itraj), trajbank.getFloat(col.y,itraj), trajbank.getFloat(col.z,itraj));
+        itraj = index.getTrajRow(ipart, DetectorType.DC.getDetectorId(), 36);
+        if(itraj>=0) setDCxyz(3, trajbank.getFloat(col.x,itraj), trajbank.getFloat(col.y,itraj), trajbank.getFloat(col.z,itraj));
+    }
+
+
+
+    /**
+     * local angles and rotated positions of the track in DC regions, computed once for all fiducial cuts
+     * and shared by the copies of this candidate made for other species, until DC positions are set again
+     * @return geometry of the track, values of regions without position are meaningless
+     */
+    public TrackGeometry getGeometry() {
+        if(geometry==null)
+            geometry = new TrackGeometry(dc_sector, new float[] {traj_x1, traj_y1, traj_z1, traj_x2, traj_y2, traj_z2, traj_x3, traj_y3, traj_z3});
+        return geometry;
+    }
+
+
+
+    /**
+     * write momentum with a mass hypothesis into a reusable holder
+     * @param vec holder to fill
+     * @param mass mass hypothesis
+     * @return false if momentum is not set, vec is not changed then
+     */
+    public boolean getFourVector(FourVector vec, double mass) {
+        if(!has(HAS_PXYZ)) return false;
+        vec.setPxPyPzM(px, py, pz, mass);
+        return true;
+    }
+
+
+
+    /**
+     * write momentum with a mass hypothesis as (px, py, pz, e) into an array
+     * @param vec array to write to
+     * @param offset index of px in the array
+     * @param mass mass hypothesis
+     * @return false if momentum is not set, vec is not changed then
+     */
+    public boolean getFourVector(double[] vec, int offset, double mass) {
+        if(!has(HAS_PXYZ)) return false;
+        vec[offset] = px;
+        vec[offset+1] = py;
+        vec[offset+2] = pz;
+        vec[offset+3] = Math.sqrt((double) px*px + (double) py*py + (double) pz*pz + mass*mass);
+        return true;
+    }
+
 }
@@ -0,0 +1,277 @@
+package uconn.utils.pid;
+
+import java.util.Arrays;
+
+public class CandidateBatch {
+    /*
+     * Candidates stored as parallel primitive arrays, one entry per particle.
+     * A batch can hold one event or a block of particles from many events of the same run,
+     * the batch versions of the cut functions loop over these arrays and clear the entries of a boolean pass array.
+     * Arrays returned by the getters are the backing storage, only the first size() entries are valid.
+     */
+
+    private final boolean isinbending; ///< magnetic field of all candidates in the batch
+    private int size = 0; ///< number of stored candidates
+
+    private int[] ipart; ///< particle index in REC::Particle
+    private int[] event; ///< event tag given when the candidate was added
+    private long[] mask; ///< bits of the quantities which are set, see Candidate
+    private int[] pid; ///< particle PID
+    private short[] status; ///< particle status
+    private float[] p; ///< momentum
+    private float[] px; ///< px momentum
+    private float[] py; ///< py momentum
+    private float[] pz; ///< pz momentum
+    private float[] vz; ///< z vertex
+    private float[] dvz; ///< the difference between trigger particle vz and candidate vz
+    private float[] beta; ///< beta value
+    private float[] chi2pid; ///< chi2pid value
+    private float[] nphe; ///< number of photoelectrons
+    private int[] pcal_sector; ///< pcal sector
+    private float[] pcal_energy; ///< energy deposited in PCAL
+    private float[] ecin_energy; ///< energy deposited in ECin
+    private float[] ecout_energy; ///< energy deposited in ECout
+    private float[] pcal_lv; ///< distance on V-side
+    private float[] pcal_lw; ///< distance on W-side
+    private int[] dc_sector; ///< dc sector
+    private final float[][] traj_x = new float[3][]; ///< x-position at DC regions 1, 2 and 3
+    private final float[][] traj_y = new float[3][]; ///< y-position at DC regions 1, 2 and 3
+    private final float[][] traj_z = new float[3][]; ///< z-position at DC regions 1, 2 and 3
+
+
+
+    /** A constructor
+     * @param isinbending true for inbending, false for outbending
+     */
+    public CandidateBatch(boolean isinbending) {
+        this(isinbending, 64);
+    }
+
+
+
+    /** A constructor
+     * @param isinbending true for inbending, false for outbending
+     * @param capacity initial number of candidates to allocate space for
+     */
+    public CandidateBatch(boolean isinbending, int capacity) {
+        this.isinbending = isinbending;
+        allocate(Math.max(capacity, 1));
+    }
+
+
+
+    /**
+     * resize all columns keeping stored candidates
+     */
+    private void allocate(int capacity) {
+        ipart = ipart==null ? new int[capacity] : Arrays.copyOf(ipart, capacity);
+        event = event==null ? new int[capacity] : Arrays.copyOf(event, capacity);
+        mask = mask==null ? new long[capacity] : Arrays.copyOf(mask, capacity);
+        pid = pid==null ? new int[capacity] : Arrays.copyOf(pid, capacity);
+        status = status==null ? new short[capacity] : Arrays.copyOf(status, capacity);
+        p = p==null ? new float[capacity] : Arrays.copyOf(p, capacity);
+        px = px==null ? new float[capacity] : Arrays.copyOf(px, capacity);
+        py = py==null ? new float[capacity] : Arrays.copyOf(py, capacity);
+        pz = pz==null ? new float[capacity] : Arrays.copyOf(pz, capacity);
+        vz = vz==null ? new float[capacity] : Arrays.copyOf(vz, capacity);
+        dvz = dvz==null ? new float[capacity] : Arrays.copyOf(dvz, capacity);
+        beta = beta==null ? new float[capacity] : Arrays.copyOf(beta, capacity);
+        chi2pid = chi2pid==null ? new float[capacity] : Arrays.copyOf(chi2pid, capacity);
+        nphe = nphe==null ? new float[capacity] : Arrays.copyOf(nphe, capacity);
+        pcal_sector = pcal_sector==null ? new int[capacity] : Arrays.copyOf(pcal_sector, capacity);
+        pcal_energy = pcal_energy==null ? new float[capacity] : Arrays.copyOf(pcal_energy, capacity);
+        ecin_energy = ecin_energy==null ? new float[capacity] : Arrays.copyOf(ecin_energy, capacity);
+        ecout_energy = ecout_energy==null ? new float[capacity] : Arrays.copyOf(ecout_energy, capacity);
+        pcal_lv = pcal_lv==null ? new float[capacity] : Arrays.copyOf(pcal_lv, capacity);
+        pcal_lw = pcal_lw==null ? new float[capacity] : Arrays.copyOf(pcal_lw, capacity);
+        dc_sector = dc_sector==null ? new int[capacity] : Arrays.copyOf(dc_sector, capacity);
+        for(int ireg=0; ireg<3; ireg++) {
+            traj_x[ireg] = traj_x[ireg]==null ? new float[capacity] : Arrays.copyOf(traj_x[ireg], capacity);
+            traj_y[ireg] = traj_y[ireg]==null ? new float[capacity] : Arrays.copyOf(traj_y[ireg], capacity);
+            traj_z[ireg] = traj_z[ireg]==null ? new float[capacity] : Arrays.copyOf(traj_z[ireg], capacity);
+        }
+    }
+
+
+
+    /**
+     * append one candidate to the batch
+     * @param candidate candidate with decoded bank information
+     * @param ievent event tag to keep track of candidates from different events
+     * @return position of the candidate in the batch
+     */
+    public int add(Candidate candidate, int ievent) {
+        if((candidate.field==Candidate.MagField.INBENDING) != isinbending)
+            throw new IllegalArgumentException("candidate magnetic field does not match the batch");
+
+        if(size == ipart.length) allocate(2*size);
+
+        int i = size++;
+        ipart[i] = candidate.ipart;
+        event[i] = ievent;
+        mask[i] = candidate.mask;
+        pid[i] = candidate.pid;
+        status[i] = candidate.status;
+        p[i] = candidate.p;
+        px[i] = candidate.px;
+        py[i] = candidate.py;
+        pz[i] = candidate.pz;
+        vz[i] = candidate.vz;
+        dvz[i] = candidate.dvz;
+        beta[i] = candidate.beta;
+        chi2pid[i] = candidate.chi2pid;
+        nphe[i] = candidate.nphe;
+        pcal_sector[i] = candidate.pcal_sector;
+        pcal_energy[i] = candidate.pcal_energy;
+        ecin_energy[i] = candidate.ecin_energy;
+        ecout_energy[i] = candidate.ecout_energy;
+        pcal_lv[i] = candidate.pcal_lv;
+        pcal_lw[i] = candidate.pcal_lw;
+        dc_sector[i] = candidate.dc_sector;
+        traj_x[0][i] = candidate.traj_x1;
+        traj_y[0][i] = candidate.traj_y1;
+        traj_z[0][i] = candidate.traj_z1;
+        traj_x[1][i] = candidate.traj_x2;
+        traj_y[1][i] = candidate.traj_y2;
+        traj_z[1][i] = candidate.traj_z2;
+        traj_x[2][i] = candidate.traj_x3;
+        traj_y[2][i] = candidate.traj_y3;
+        traj_z[2][i] = candidate.traj_z3;
+        return i;
+    }
+
+
+
+    /**
+     * remove all candidates, allocated space is kept
+     */
+    public void clear() {
+        size = 0;
+    }
+
+
+
+    /**
+     * @return number of candidates in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+
+
+    /**
+     * @return true for inbending, false for outbending
+     */
+    public boolean isInbending() {
+        return isinbending;
+    }
+
+
+
+    /**
+     * mark candidates which have all requested quantities set
+     * @param fields bits of the quantities, see Candidate
+     * @param out array of at least size() values, set to true for candidates having all the quantities
+     */
+    public void present(long fields, boolean[] out) {
+        for(int i=0; i<size; i++)
+            out[i] = (mask[i] & fields) == fields;
+    }
+
+
+
+    /**
+     * write four-momenta of all candidates as consecutive (px, py, pz, e)
+     * @param mass mass hypothesis, e.g. FourVector.PION_MASS
+     * @param out array of at least 4*size() values, NaN for candidates without momentum
+     */
+    public void getFourVectors(double mass, double[] out) {
+        double mass2 = mass*mass;
+        for(int i=0; i<size; i++) {
+            if((mask[i] & Candidate.HAS_PXYZ) == Candidate.HAS_PXYZ) {
+                double x = px[i], y = py[i], z = pz[i];
+                out[4*i] = x;
+                out[4*i+1] = y;
+                out[4*i+2] = z;
+                out[4*i+3] = Math.sqrt(x*x + y*y + z*z + mass2);
+            } else
+                out[4*i] = out[4*i+1] = out[4*i+2] = out[4*i+3] = Double.NaN;
+        }
+    }
+
+
+
+    /// @return particle indices in REC::Particle
+    public int[] getIpart() { return ipart; }
+
+    /// @return event tags
+    public int[] getEvent() { return event; }
+
+    /// @return bits of the quantities which are set
+    public long[] getMask() { return mask; }
+
+    /// @return particle PIDs
+    public int[] getPID() { return pid; }
+
+    /// @return particle status
+    public short[] getStatus() { return status; }
+
+    /// @return momenta
+    public float[] getP() { return p; }
+
+    /// @return px momenta
+    public float[] getPx() { return px; }
+
+    /// @return py momenta
+    public float[] getPy() { return py; }
+
+    /// @return pz momenta
+    public float[] getPz() { return pz; }
+
+    /// @return z vertices
+    public float[] getVZ() { return vz; }
+
+    /// @return differences between trigger particle vz and candidate vz
+    public float[] getDVZ() { return dvz; }
+
+    /// @return beta values
+    public float[] getBETA() { return beta; }
+
+    /// @return chi2pid values
+    public float[] getCHI2PID() { return chi2pid; }
+
+    /// @return numbers of photoelectrons
+    public float[] getNPHE() { return nphe; }
+
+    /// @return pcal sectors
+    public int[] getPCALsector() { return pcal_sector; }
+
+    /// @return energies deposited in PCAL
+    public float[] getPCALenergy() { return pcal_energy; }
+
+    /// @return energies deposited in ECin
+    public float[] getECINenergy() { return ecin_energy; }
+
+    /// @return energies deposited in ECout
+    public float[] getECOUTenergy() { return ecout_energy; }
+
+    /// @return distances on V-side
+    public float[] getPCALlv() { return pcal_lv; }
+
+    /// @return distances on W-side
+    public float[] getPCALlw() { return pcal_lw; }
+
+    /// @return dc sectors
+    public int[] getDCsector() { return dc_sector; }
+
+    /// @return x-positions at DC region 1, 2 or 3
+    public float[] getDCx(int region) { return traj_x[region-1]; }
+
+    /// @return y-positions at DC region 1, 2 or 3
+    public float[] getDCy(int region) { return traj_y[region-1]; }
+
+    /// @return z-positions at DC region 1, 2 or 3
+    public float[] getDCz(int region) { return traj_z[region-1]; }
+
+}
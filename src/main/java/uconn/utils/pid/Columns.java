@@ -0,0 +1,138 @@
+package uconn.utils.pid;
+
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Schema;
+
+public class Columns {
+    /*
+     * Column indices are resolved once per schema and then used with
+     * the index based Bank getters inside row loops.
+     * Each binding keeps the last schema it was resolved for,
+     * so the lookup is a single reference comparison as long as the schema does not change.
+     */
+
+
+
+    /// column indices of REC::Particle
+    public static class Particle {
+        private static volatile Particle cached = null; ///< binding for the last seen schema
+
+        public final Schema schema; ///< schema the indices were resolved for
+        public final int pid, px, py, pz, vz, beta, chi2pid, status, charge;
+
+        private Particle(Schema schema) {
+            this.schema = schema;
+            pid = schema.getEntryOrder("pid");
+            px = schema.getEntryOrder("px");
+            py = schema.getEntryOrder("py");
+            pz = schema.getEntryOrder("pz");
+            vz = schema.getEntryOrder("vz");
+            beta = schema.getEntryOrder("beta");
+            chi2pid = schema.getEntryOrder("chi2pid");
+            status = schema.getEntryOrder("status");
+            charge = schema.getEntryOrder("charge");
+        }
+
+        /**
+         * @param bank REC::Particle bank
+         * @return column indices for the schema of this bank
+         */
+        public static Particle of(Bank bank) {
+            Particle columns = cached;
+            if(columns==null || columns.schema!=bank.getSchema()) cached = columns = new Particle(bank.getSchema());
+            return columns;
+        }
+    }
+
+
+
+    /// column indices of REC::Calorimeter
+    public static class Calorimeter {
+        private static volatile Calorimeter cached = null; ///< binding for the last seen schema
+
+        public final Schema schema; ///< schema the indices were resolved for
+        public final int pindex, detector, sector, layer, energy, x, y, z, lv, lw;
+
+        private Calorimeter(Schema schema) {
+            this.schema = schema;
+            pindex = schema.getEntryOrder("pindex");
+            detector = schema.getEntryOrder("detector");
+            sector = schema.getEntryOrder("sector");
+            layer = schema.getEntryOrder("layer");
+            energy = schema.getEntryOrder("energy");
+            x = schema.getEntryOrder("x");
+            y = schema.getEntryOrder("y");
+            z = schema.getEntryOrder("z");
+            lv = schema.getEntryOrder("lv");
+            lw = schema.getEntryOrder("lw");
+        }
+
+        /**
+         * @param bank REC::Calorimeter bank
+         * @return column indices for the schema of this bank
+         */
+        public static Calorimeter of(Bank bank) {
+            Calorimeter columns = cached;
+            if(columns==null || columns.schema!=bank.getSchema()) cached = columns = new Calorimeter(bank.getSchema());
+            return columns;
+        }
+    }
+
+
+
+    /// column indices of REC::Cherenkov
+    public static class Cherenkov {
+        private static volatile Cherenkov cached = null; ///< binding for the last seen schema
+
+        public final Schema schema; ///< schema the indices were resolved for
+        public final int pindex, detector, nphe;
+
+        private Cherenkov(Schema schema) {
+            this.schema = schema;
+            pindex = schema.getEntryOrder("pindex");
+            detector = schema.getEntryOrder("detector");
+            nphe = schema.getEntryOrder("nphe");
+        }
+
+        /**
+         * @param bank REC::Cherenkov bank
+         * @return column indices for the schema of this bank
+         */
+        public static Cherenkov of(Bank bank) {
+            Cherenkov columns = cached;
+            if(columns==null || columns.schema!=bank.getSchema()) cached = columns = new Cherenkov(bank.getSchema());
+            return columns;
+        }
+    }
+
+
+
+    /// column indices of REC::Traj
+    public static class Traj {
+        private static volatile Traj cached = null; ///< binding for the last seen schema
+
+        public final Schema schema; ///< schema the indices were resolved for
+        public final int pindex, detector, layer, x, y, z;
+
+        private Traj(Schema schema) {
+            this.schema = schema;
+            pindex = schema.getEntryOrder("pindex");
+            detector = schema.getEntryOrder("detector");
+            layer = schema.getEntryOrder("layer");
+            x = schema.getEntryOrder("x");
+            y = schema.getEntryOrder("y");
+            z = schema.getEntryOrder("z");
+        }
+
+        /**
+         * @param bank REC::Traj bank
+         * @return column indices for the schema of this bank
+         */
+        public static Traj of(Bank bank) {
+            Traj columns = cached;
+            if(columns==null || columns.schema!=bank.getSchema()) cached = columns = new Traj(bank.getSchema());
+            return columns;
+        }
+    }
+
+}
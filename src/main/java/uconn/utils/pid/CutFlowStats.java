@@ -0,0 +1,296 @@
+package uconn.utils.pid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CutFlowStats<C extends Enum<C>> {
+    /*
+     * Cut-flow counters per magnetic field and sector, filled from cut masks of evaluateAll().
+     * For every cut two numbers are kept: candidates passing this cut alone,
+     * and candidates passing this cut and all cuts before it in the flow order.
+     * Counters are LongAdders, so many worker threads can fill one instance without contention,
+     * snapshot() gives an immutable copy which can be merged with snapshots of other jobs and dumped as text or CSV.
+     * Sector 0 collects candidates without a sector.
+     */
+
+    private static final int NSECTORS = 7; ///< sector 0 for unknown and sectors 1-6
+    private static final String[] FIELDS = {"INBENDING", "OUTBENDING"}; ///< names of field polarities, index 0 is inbending
+
+    private final List<C> order; ///< cuts in the order of the flow
+    private final int[] bits; ///< mask bit of each cut in the flow order
+    private final LongAdder[] counters; ///< counters flattened as [field][sector][total, passed cuts..., flow cuts...]
+
+
+
+    /** A constructor, flow follows the enum order
+     * @param type cut enum class
+     */
+    public CutFlowStats(Class<C> type) {
+        this(Arrays.asList(type.getEnumConstants()));
+    }
+
+
+
+    /** A constructor
+     * @param order cuts in the order of the flow, only read while the list constructor copies it
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public CutFlowStats(C ...order) {
+        this(Arrays.asList(order));
+    }
+
+
+
+    /** A constructor
+     * @param order cuts in the order of the flow
+     */
+    public CutFlowStats(List<C> order) {
+        this.order = Collections.unmodifiableList(new ArrayList<>(order));
+        this.bits = new int[order.size()];
+        for(int icut=0; icut<bits.length; icut++)
+            bits[icut] = CutMask.bit(order.get(icut));
+
+        this.counters = new LongAdder[2*NSECTORS*width(bits.length)];
+        for(int icnt=0; icnt<counters.length; icnt++)
+            counters[icnt] = new LongAdder();
+    }
+
+
+
+    /**
+     * @return number of counters per field and sector
+     */
+    private static int width(int ncuts) {
+        return 1 + 2*ncuts;
+    }
+
+
+
+    /**
+     * @return first counter of [field][sector]
+     */
+    private static int slot(int ncuts, boolean isinbending, int sector) {
+        if(sector < 0 || sector >= NSECTORS)
+            throw new IllegalArgumentException("sector must be 0-6: " + sector);
+        return ((isinbending ? 0 : 1)*NSECTORS + sector)*width(ncuts);
+    }
+
+
+
+    /**
+     * count one candidate
+     * @param result cut mask from evaluateAll()
+     * @param sector sector 1-6, 0 if unknown
+     * @param isinbending true for inbending, false for outbending
+     */
+    public void fill(int result, int sector, boolean isinbending) {
+        int offset = slot(bits.length, isinbending, sector);
+        counters[offset].increment();
+
+        boolean flow = true;
+        for(int icut=0; icut<bits.length; icut++) {
+            boolean pass = (result & bits[icut]) != 0;
+            if(pass) counters[offset + 1 + icut].increment();
+            flow = flow && pass;
+            if(flow) counters[offset + 1 + bits.length + icut].increment();
+        }
+    }
+
+
+
+    /**
+     * count one candidate, sector is taken from DC and then from PCAL
+     * @param result cut mask from evaluateAll() of this candidate
+     * @param candidate candidate
+     */
+    public void fill(int result, Candidate candidate) {
+        Integer sector = candidate.getDCsector();
+        if(sector == null) sector = candidate.getPCALsector();
+        fill(result, sector==null || sector<1 || sector>6 ? 0 : sector, candidate.isInbending());
+    }
+
+
+
+    /**
+     * @return copy of all counters, other threads may keep filling while it is taken
+     */
+    public Snapshot<C> snapshot() {
+        long[] counts = new long[counters.length];
+        for(int icnt=0; icnt<counts.length; icnt++)
+            counts[icnt] = counters[icnt].sum();
+        return new Snapshot<>(order, counts);
+    }
+
+
+
+    /**
+     * reset all counters to zero
+     */
+    public void reset() {
+        for(LongAdder counter: counters)
+            counter.reset();
+    }
+
+
+
+    /**
+     * @return cuts in the order of the flow
+     */
+    public List<C> getOrder() {
+        return order;
+    }
+
+
+
+    public static final class Snapshot<C extends Enum<C>> {
+        /*
+         * Immutable copy of CutFlowStats counters
+         */
+
+        private final List<C> order; ///< cuts in the order of the flow
+        private final long[] counts; ///< counts in the layout of CutFlowStats counters
+
+
+
+        /** A constructor
+         * @param order cuts in the order of the flow
+         * @param counts counts in the layout of CutFlowStats counters
+         */
+        private Snapshot(List<C> order, long[] counts) {
+            this.order = order;
+            this.counts = counts;
+        }
+
+
+
+        /**
+         * @param other snapshot of statistics with the same flow order, e.g. from another job
+         * @return new snapshot with summed counts
+         */
+        public Snapshot<C> merge(Snapshot<C> other) {
+            if(!order.equals(other.order))
+                throw new IllegalArgumentException("cut flows with different cuts can not be merged: " + order + " vs " + other.order);
+            long[] sum = counts.clone();
+            for(int icnt=0; icnt<sum.length; icnt++)
+                sum[icnt] += other.counts[icnt];
+            return new Snapshot<>(order, sum);
+        }
+
+
+
+        /**
+         * @param isinbending true for inbending, false for outbending
+         * @param sector sector 1-6, 0 for unknown
+         * @return number of counted candidates
+         */
+        public long getTotal(boolean isinbending, int sector) {
+            return counts[slot(order.size(), isinbending, sector)];
+        }
+
+
+
+        /**
+         * @param cut cut of the flow
+         * @param isinbending true for inbending, false for outbending
+         * @param sector sector 1-6, 0 for unknown
+         * @return number of candidates passing this cut alone
+         */
+        public long getPassed(C cut, boolean isinbending, int sector) {
+            return counts[slot(order.size(), isinbending, sector) + 1 + index(cut)];
+        }
+
+
+
+        /**
+         * @param cut cut of the flow
+         * @param isinbending true for inbending, false for outbending
+         * @param sector sector 1-6, 0 for unknown
+         * @return number of candidates passing this cut and all cuts before it in the flow
+         */
+        public long getFlow(C cut, boolean isinbending, int sector) {
+            return counts[slot(order.size(), isinbending, sector) + 1 + order.size() + index(cut)];
+        }
+
+
+
+        /**
+         * @return position of the cut in the flow
+         */
+        private int index(C cut) {
+            int icut = order.indexOf(cut);
+            if(icut < 0)
+                throw new IllegalArgumentException(cut + " is not in the cut flow " + order);
+            return icut;
+        }
+
+
+
+        /**
+         * @return sum of one counter over all sectors
+         */
+        private long sum(boolean isinbending, int icnt) {
+            long sum = 0;
+            for(int sector=0; sector<NSECTORS; sector++)
+                sum += counts[slot(order.size(), isinbending, sector) + icnt];
+            return sum;
+        }
+
+
+
+        /**
+         * @return cut-flow tables for each field with candidates: flow counts for all sectors and for each sector,
+         * fraction of candidates left after each cut and number of candidates passing each cut alone
+         */
+        public String toText() {
+            int ncuts = order.size();
+            StringBuilder sb = new StringBuilder();
+            for(boolean isinbending: new boolean[] {true, false}) {
+                long total = sum(isinbending, 0);
+                if(total == 0) continue;
+
+                sb.append(String.format("%s: %d candidates%n", FIELDS[isinbending ? 0 : 1], total));
+                sb.append(String.format("%-20s %12s %8s %12s", "cut", "flow", "left", "alone"));
+                for(int sector=0; sector<NSECTORS; sector++)
+                    sb.append(String.format(" %10s", "sector" + sector));
+                sb.append(String.format("%n"));
+
+                for(int icut=0; icut<ncuts; icut++) {
+                    long flow = sum(isinbending, 1 + ncuts + icut);
+                    sb.append(String.format("%-20s %12d %7.2f%% %12d", order.get(icut), flow, 100.0*flow/total, sum(isinbending, 1 + icut)));
+                    for(int sector=0; sector<NSECTORS; sector++)
+                        sb.append(String.format(" %10d", counts[slot(ncuts, isinbending, sector) + 1 + ncuts + icut]));
+                    sb.append(String.format("%n"));
+                }
+            }
+            return sb.toString();
+        }
+
+
+
+        /**
+         * @return one line per field, sector and cut: field,sector,cut,passed,flow,
+         * cut TOTAL gives the number of counted candidates
+         */
+        public String toCSV() {
+            int ncuts = order.size();
+            StringBuilder sb = new StringBuilder("field,sector,cut,passed,flow\n");
+            for(boolean isinbending: new boolean[] {true, false})
+                for(int sector=0; sector<NSECTORS; sector++) {
+                    int offset = slot(ncuts, isinbending, sector);
+                    String field = FIELDS[isinbending ? 0 : 1];
+                    sb.append(field).append(',').append(sector).append(",TOTAL,")
+                        .append(counts[offset]).append(',').append(counts[offset]).append('\n');
+                    for(int icut=0; icut<ncuts; icut++)
+                        sb.append(field).append(',').append(sector).append(',').append(order.get(icut)).append(',')
+                            .append(counts[offset + 1 + icut]).append(',').append(counts[offset + 1 + ncuts + icut]).append('\n');
+                }
+            return sb.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package uconn.utils.pid;
+
+import java.util.EnumSet;
+
+public class CutMask {
+    /*
+     * Helpers for cut result masks returned by evaluateAll() of candidates
+     * (evaluatePip()/evaluatePim() and evaluateKp()/evaluateKm() for charged pions and kaons):
+     * bit 1<<cut.ordinal() is set if the candidate passes the cut.
+     * With one mask per candidate any selection, N-1 selection or cut flow is a bit operation,
+     * cuts are not evaluated again.
+     */
+
+    static final int MAX_CUTS = Integer.SIZE; ///< maximum number of constants in a cut enum
+
+
+
+    /**
+     * @param cut cut
+     * @return mask bit of this cut
+     */
+    public static int bit(Enum<?> cut) {
+        return 1 << cut.ordinal();
+    }
+
+
+
+    /**
+     * @param cuts list of cuts
+     * @return mask with bits of all listed cuts
+     */
+    @SafeVarargs
+    public static <C extends Enum<C>> int of(C ...cuts) {
+        int mask = 0;
+        for(C cut: cuts)
+            mask |= bit(cut);
+        return mask;
+    }
+
+
+
+    /**
+     * @param cuts set of cuts
+     * @return mask with bits of all cuts in the set
+     */
+    public static <C extends Enum<C>> int of(EnumSet<C> cuts) {
+        int mask = 0;
+        for(C cut: cuts)
+            mask |= bit(cut);
+        return mask;
+    }
+
+
+
+    /**
+     * @param type cut enum class
+     * @return mask with bits of all cuts of this enum
+     */
+    public static <C extends Enum<C>> int all(Class<C> type) {
+        int ncuts = type.getEnumConstants().length;
+        return ncuts == MAX_CUTS ? -1 : (1 << ncuts) - 1;
+    }
+
+
+
+    /**
+     * @param result mask from evaluateAll()
+     * @param required mask of cuts required to pass
+     * @return true if all required cuts pass
+     */
+    public static boolean passes(int result, int required) {
+        return (result & required) == required;
+    }
+
+
+
+    /**
+     * N-1 selection
+     * @param result mask from evaluateAll()
+     * @param required mask of cuts required to pass
+     * @param excluded cut which is not applied
+     * @return true if all required cuts except the excluded one pass
+     */
+    public static boolean passesAllBut(int result, int required, Enum<?> excluded) {
+        return passes(result, required & ~bit(excluded));
+    }
+
+
+
+    /**
+     * @param result mask from evaluateAll()
+     * @param applycuts the list of cuts in the order they are applied
+     * @return index of the first failed cut in the list, -1 if all cuts pass, same as failedpid
+     */
+    @SafeVarargs
+    public static <C extends Enum<C>> int firstFailed(int result, C ...applycuts) {
+        for(int icut=0; icut<applycuts.length; icut++)
+            if(applycuts[icut]==null || (result & bit(applycuts[icut])) == 0) return icut;
+        return -1;
+    }
+
+
+
+    /**
+     * @param result mask from evaluateAll()
+     * @param type cut enum class
+     * @return set of failed cuts
+     */
+    public static <C extends Enum<C>> EnumSet<C> failed(int result, Class<C> type) {
+        EnumSet<C> cuts = EnumSet.noneOf(type);
+        for(C cut: type.getEnumConstants())
+            if((result & bit(cut)) == 0) cuts.add(cut);
+        return cuts;
+    }
+
+}
@@ -0,0 +1,337 @@
+package uconn.utils.pid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public final class CutPlan<C extends Enum<C>, T> {
+    /*
+     * A list of cuts compiled once into an array of direct tests.
+     * Evaluation walks the array without allocation or enum dispatch,
+     * a cut which is null in the list always fails, like the unknown cut branch of the old if-chains.
+     *
+     * An adaptive plan (see adaptive()) evaluates all its cuts on the first warm-up candidates,
+     * measuring time and rejections of each cut, and then test() applies the cuts
+     * in increasing order of cost/(1-pass rate), the expected cost per rejected candidate.
+     * Warm-up candidates are collected in blocks and each cut is timed over a whole block,
+     * so the clock is read twice per cut and block instead of per candidate. The first block is
+     * only counted, not timed, since it runs before the JIT compiled the cuts. If the warm-up is
+     * too short for a timed block, the cuts are ordered by rejection rate alone.
+     * Selection is an AND of all cuts, so the order changes only the speed, not the result.
+     * failed() always applies cuts in the order of the plan, so failed cut indices stay the same.
+     */
+
+    private final List<C> cuts; ///< cuts in the order they are applied
+    private final Predicate<? super T>[] tests; ///< test of each cut in the same order
+    private final Predicate<? super T>[] byordinal; ///< test of every constant of the cut enum, indexed by ordinal
+
+    private static final int BLOCK = 64; ///< number of warm-up candidates timed together
+
+    private final int warmup; ///< number of candidates measured before reordering, 0 for fixed order
+    private final long[] nanos; ///< time spent in each cut on the timed warm-up blocks
+    private final long[] rejected; ///< number of candidates rejected by each cut during warm-up
+    private final List<T> block; ///< warm-up candidates waiting to be timed
+    private int nmeasured = 0; ///< number of candidates measured so far
+    private int ntimed = 0; ///< number of candidates in the timed warm-up blocks
+    private int[] permutation = null; ///< plan index of each cut in the order applied by test()
+    private volatile Predicate<? super T>[] ordered; ///< tests in the order applied by test(), null during warm-up
+    private volatile List<C> order; ///< cuts in the order applied by test(), null during warm-up
+
+
+
+    private CutPlan(Class<C> type, List<C> cuts, Function<? super C, ? extends Predicate<? super T>> resolver) {
+        C[] constants = type.getEnumConstants();
+        if(constants.length > CutMask.MAX_CUTS)
+            throw new IllegalArgumentException(type.getName() + " has more than " + CutMask.MAX_CUTS + " cuts to fit in a cut mask");
+        this.byordinal = newTests(constants.length);
+        for(C cut: constants)
+            byordinal[cut.ordinal()] = resolver.apply(cut);
+
+        this.cuts = Collections.unmodifiableList(cuts);
+        this.tests = newTests(cuts.size());
+        for(int icut=0; icut<tests.length; icut++) {
+            C cut = cuts.get(icut);
+            tests[icut] = cut==null ? candidate -> false : byordinal[cut.ordinal()];
+        }
+
+        this.warmup = 0;
+        this.nanos = null;
+        this.rejected = null;
+        this.block = null;
+        this.ordered = tests;
+        this.order = this.cuts;
+    }
+
+
+
+    /** A constructor of adaptive copy of a plan
+     * @param other compiled plan
+     * @param warmup number of candidates to measure
+     */
+    private CutPlan(CutPlan<C, T> other, int warmup) {
+        this.cuts = other.cuts;
+        this.tests = other.tests;
+        this.byordinal = other.byordinal;
+
+        this.warmup = warmup;
+        this.nanos = new long[tests.length];
+        this.rejected = new long[tests.length];
+        this.block = new ArrayList<>(BLOCK);
+        this.ordered = null;
+        this.order = null;
+    }
+
+
+
+    /**
+     * @return array for n tests, generic arrays can only be created by a cast
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Predicate<? super T>[] newTests(int n) {
+        return (Predicate<? super T>[]) new Predicate<?>[n];
+    }
+
+
+
+    /**
+     * compile a plan applying cuts in their enum order
+     * @param type cut enum class
+     * @param cuts cuts to apply
+     * @param resolver test of each cut
+     */
+    public static <C extends Enum<C>, T> CutPlan<C, T> compile(Class<C> type, EnumSet<C> cuts, Function<? super C, ? extends Predicate<? super T>> resolver) {
+        return new CutPlan<>(type, new ArrayList<>(cuts), resolver);
+    }
+
+
+
+    /**
+     * compile a plan applying cuts in the given order
+     * @param type cut enum class
+     * @param cuts cuts to apply, null entries always fail
+     * @param resolver test of each cut
+     */
+    @SafeVarargs
+    public static <C extends Enum<C>, T> CutPlan<C, T> compile(Class<C> type, Function<? super C, ? extends Predicate<? super T>> resolver, C ...cuts) {
+        List<C> list = new ArrayList<>(cuts.length);
+        for(C cut: cuts) list.add(cut);
+        return new CutPlan<>(type, list, resolver);
+    }
+
+
+
+    /**
+     * adaptive copy of this plan: the first warm-up candidates are tested with all cuts to measure
+     * the cost and rejection rate of each cut, afterwards test() applies cheap selective cuts first
+     * @param warmup number of candidates to measure, at least 1
+     * @return new adaptive plan with the same cuts
+     */
+    public CutPlan<C, T> adaptive(int warmup) {
+        if(warmup < 1)
+            throw new IllegalArgumentException("warm-up window must have at least one candidate: " + warmup);
+        return new CutPlan<>(this, warmup);
+    }
+
+
+
+    /**
+     * @param candidate candidate to test
+     * @return true if all cuts of the plan pass
+     */
+    public boolean test(T candidate) {
+        Predicate<? super T>[] tests = ordered;
+        if(tests == null) return measure(candidate);
+
+        for(Predicate<? super T> test: tests)
+            if(!test.test(candidate)) return false;
+        return true;
+    }
+
+
+
+    /**
+     * warm-up test: tests the candidate in the order of the plan and adds it to the current block,
+     * full blocks and the last partial one are measured, the plan is reordered after the last warm-up candidate
+     * @param candidate candidate to test
+     * @return true if all cuts of the plan pass
+     */
+    private synchronized boolean measure(T candidate) {
+        if(ordered != null) return test(candidate);
+
+        boolean pass = failed(candidate) < 0;
+        block.add(candidate);
+        ++nmeasured;
+        if(block.size() == BLOCK || nmeasured == warmup) measureBlock();
+        if(nmeasured == warmup) reorder();
+        return pass;
+    }
+
+
+
+    /**
+     * count rejections of each cut over the current block and time it,
+     * except for the first block and a partial block at the end of the warm-up
+     */
+    private void measureBlock() {
+        boolean timed = nmeasured > BLOCK && block.size() == BLOCK;
+        for(int icut=0; icut<tests.length; icut++) {
+            Predicate<? super T> test = tests[icut];
+            int nrejected = 0;
+            long start = System.nanoTime();
+            for(int icand=0; icand<block.size(); icand++)
+                if(!test.test(block.get(icand))) nrejected++;
+            if(timed) nanos[icut] += System.nanoTime() - start;
+            rejected[icut] += nrejected;
+        }
+        if(timed) ntimed += block.size();
+        block.clear();
+    }
+
+
+
+    /**
+     * sort cuts by time per rejected candidate, cuts which never rejected go last,
+     * ties keep the order of the plan
+     */
+    private void reorder() {
+        Integer[] indices = new Integer[tests.length];
+        for(int icut=0; icut<indices.length; icut++)
+            indices[icut] = icut;
+        Arrays.sort(indices, Comparator.comparingDouble(this::rank));
+
+        Predicate<? super T>[] tests = newTests(indices.length);
+        List<C> order = new ArrayList<>(indices.length);
+        for(int icut=0; icut<indices.length; icut++) {
+            tests[icut] = this.tests[indices[icut]];
+            order.add(cuts.get(indices[icut]));
+        }
+        this.permutation = new int[indices.length];
+        for(int icut=0; icut<indices.length; icut++)
+            permutation[icut] = indices[icut];
+        this.order = Collections.unmodifiableList(order);
+        this.ordered = tests;
+    }
+
+
+
+    /**
+     * @return warm-up time per candidate over rejection rate of a cut, expected cost of reaching a rejection with it,
+     * without timed blocks the inverse rejection rate
+     */
+    private double rank(int icut) {
+        if(rejected[icut]==0) return Double.POSITIVE_INFINITY;
+        double cost = ntimed==0 ? 1 : nanos[icut]/(double) ntimed;
+        return cost*nmeasured/rejected[icut];
+    }
+
+
+
+    /**
+     * @param candidate candidate to test
+     * @return index of the first failing cut in the plan, -1 if all cuts pass
+     */
+    public int failed(T candidate) {
+        for(int icut=0; icut<tests.length; icut++)
+            if(!tests[icut].test(candidate)) return icut;
+        return -1;
+    }
+
+
+
+    /**
+     * apply an ad hoc list of cuts with the tests of this plan, without compiling a new plan
+     * @param candidate candidate to test
+     * @param applycuts cuts to apply, null entries always fail
+     * @return true if all cuts pass
+     */
+    public boolean test(T candidate, C[] applycuts) {
+        for(C cut: applycuts)
+            if(cut==null || !byordinal[cut.ordinal()].test(candidate)) return false;
+        return true;
+    }
+
+
+
+    /**
+     * apply an ad hoc list of cuts with the tests of this plan, without compiling a new plan
+     * @param candidate candidate to test
+     * @param applycuts cuts to apply, null entries always fail
+     * @return index of the first failing cut in applycuts, -1 if all cuts pass
+     */
+    public int failed(T candidate, C[] applycuts) {
+        for(int icut=0; icut<applycuts.length; icut++)
+            if(applycuts[icut]==null || !byordinal[applycuts[icut].ordinal()].test(candidate)) return icut;
+        return -1;
+    }
+
+
+
+    /**
+     * evaluate every cut of the enum, not only the cuts of the plan, without stopping at failed cuts
+     * @param candidate candidate to test
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask
+     */
+    public int evaluateAll(T candidate) {
+        int mask = 0;
+        for(int icut=0; icut<byordinal.length; icut++)
+            if(byordinal[icut].test(candidate)) mask |= 1 << icut;
+        return mask;
+    }
+
+
+
+    /**
+     * @return cuts in the order they are applied
+     */
+    public List<C> getCuts() {
+        return cuts;
+    }
+
+
+
+    /**
+     * @return cuts in the order applied by test(), null while an adaptive plan is in warm-up
+     */
+    public List<C> getOrder() {
+        return order;
+    }
+
+
+
+    /**
+     * @return true if the plan applies cuts in the fixed order or has finished its warm-up
+     */
+    public boolean isAdapted() {
+        return ordered != null;
+    }
+
+
+
+    /**
+     * @return chosen order of cuts with warm-up cost and rejection rate of each cut
+     */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        if(warmup == 0) {
+            sb.append("fixed order:");
+            for(C cut: cuts) sb.append(' ').append(cut);
+            return sb.toString();
+        }
+        if(ordered == null)
+            return "warm-up: " + nmeasured + "/" + warmup + " candidates measured";
+
+        sb.append(String.format("adaptive order after %d candidates, %d timed:%n", nmeasured, ntimed));
+        for(int iord=0; iord<permutation.length; iord++) {
+            int icut = permutation[iord];
+            sb.append(String.format("%2d %-20s %9.1f ns/candidate, rejects %6.2f%%%n",
+                    iord, order.get(iord), ntimed==0 ? Double.NaN : nanos[icut]/(double) ntimed, 100.0*rejected[icut]/nmeasured));
+        }
+        return sb.toString();
+    }
+
+}
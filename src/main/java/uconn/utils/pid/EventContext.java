@@ -0,0 +1,181 @@
+package uconn.utils.pid;
+
+import org.jlab.clas.physics.LorentzVector;
+import org.jlab.detector.base.DetectorType;
+import org.jlab.jnp.hipo4.data.Bank;
+
+public class EventContext {
+    /*
+     * Trigger particle of one event, identified once and shared by all candidates of the event.
+     * Its vertex z, PCAL sector and momentum are read from the banks in the constructor,
+     * candidate factories take dvz from here instead of reading REC::Particle row 0 for every particle.
+     * firstRow() keeps the old convention (trigger is row 0), trigger() looks for the particle flagged by the trigger.
+     */
+
+    private final int itrigger; ///< REC::Particle row of the trigger particle, -1 if there is none
+    private final int pid; ///< PDG code of the trigger particle
+    private final float vz; ///< vertex z of the trigger particle
+    private final float px, py, pz; ///< momentum of the trigger particle
+    private final int sector; ///< PCAL sector of the trigger particle, 0 if unknown
+
+
+
+    /** A constructor
+     * @param recbank REC::Particle bank
+     * @param index event index with calorimeter bank for the sector, can be null
+     * @param calbank REC::Calorimeter bank for the sector, can be null
+     * @param itrigger row of the trigger particle, -1 if there is none
+     */
+    private EventContext(Bank recbank, Bank calbank, EventIndex index, int itrigger) {
+        this.itrigger = itrigger;
+        if(itrigger < 0) {
+            pid = 0;
+            vz = px = py = pz = Float.NaN;
+            sector = 0;
+            return;
+        }
+
+        Columns.Particle col = Columns.Particle.of(recbank);
+        pid = recbank.getInt(col.pid,itrigger);
+        vz = recbank.getFloat(col.vz,itrigger);
+        px = recbank.getFloat(col.px,itrigger);
+        py = recbank.getFloat(col.py,itrigger);
+        pz = recbank.getFloat(col.pz,itrigger);
+
+        int ical = calbank==null || index==null ? -1 : index.getCalorimeterRow(itrigger, DetectorType.ECAL.getDetectorId(), 1);
+        sector = ical<0 ? 0 : calbank.getByte(Columns.Calorimeter.of(calbank).sector, ical);
+    }
+
+
+
+    /**
+     * trigger particle is the first REC::Particle row, as assumed by the candidate factories without context
+     * @param recbank REC::Particle bank
+     * @return context of the event, without trigger if the bank is empty
+     */
+    public static EventContext firstRow(Bank recbank) {
+        return firstRow(recbank, null, null);
+    }
+
+
+
+    /**
+     * trigger particle is the first REC::Particle row, as assumed by the candidate factories without context
+     * @param recbank REC::Particle bank
+     * @param calbank REC::Calorimeter bank for the trigger sector, can be null
+     * @param index event index over calbank, can be null
+     * @return context of the event, without trigger if the bank is empty
+     */
+    public static EventContext firstRow(Bank recbank, Bank calbank, EventIndex index) {
+        return new EventContext(recbank, calbank, index, recbank.getRows()>0 ? 0 : -1);
+    }
+
+
+
+    /**
+     * trigger particle is the first REC::Particle row with negative status and the given PDG code
+     * @param recbank REC::Particle bank
+     * @param calbank REC::Calorimeter bank for the trigger sector, can be null
+     * @param index event index over calbank, can be null
+     * @param triggerpid PDG code of the trigger particle, e.g. 11
+     * @return context of the event, without trigger if no row matches
+     */
+    public static EventContext trigger(Bank recbank, Bank calbank, EventIndex index, int triggerpid) {
+        Columns.Particle col = Columns.Particle.of(recbank);
+        int itrigger = -1;
+        for(int ipart=0; ipart<recbank.getRows() && itrigger<0; ipart++)
+            if(recbank.getShort(col.status,ipart) < 0 && recbank.getInt(col.pid,ipart) == triggerpid) itrigger = ipart;
+        return new EventContext(recbank, calbank, index, itrigger);
+    }
+
+
+
+    /**
+     * @return true if the event has a trigger particle
+     */
+    public boolean hasTrigger() {
+        return itrigger >= 0;
+    }
+
+
+
+    /**
+     * @return REC::Particle row of the trigger particle, -1 if there is none
+     */
+    public int getTriggerRow() {
+        return itrigger;
+    }
+
+
+
+    /**
+     * @return PDG code of the trigger particle, 0 if there is none
+     */
+    public int getTriggerPID() {
+        return pid;
+    }
+
+
+
+    /**
+     * @return vertex z of the trigger particle, NaN if there is none
+     */
+    public float getVZ() {
+        return vz;
+    }
+
+
+
+    /**
+     * @return PCAL sector of the trigger particle, 0 if unknown
+     */
+    public int getSector() {
+        return sector;
+    }
+
+
+
+    /**
+     * set the difference between vertex z of a candidate and the trigger particle, nothing is set without trigger
+     * @param candidate candidate of this event
+     * @param candidate_vz vertex z of the candidate
+     */
+    public void setDVZ(Candidate candidate, float candidate_vz) {
+        if(itrigger >= 0) candidate.setDVZ(candidate_vz - vz);
+    }
+
+
+
+    /**
+     * @return four-momentum of the trigger particle with the mass of its PDG code, null if there is none
+     */
+    public LorentzVector getLorentzVector() {
+        return getLorentzVector(FourVector.mass(pid));
+    }
+
+
+
+    /**
+     * @param vec holder to fill with four-momentum of the trigger particle with the mass of its PDG code
+     * @return false if there is no trigger particle, vec is not changed then
+     */
+    public boolean getFourVector(FourVector vec) {
+        if(itrigger < 0) return false;
+        vec.setPxPyPzM(px, py, pz, FourVector.mass(pid));
+        return true;
+    }
+
+
+
+    /**
+     * @param mass mass hypothesis of the trigger particle
+     * @return four-momentum of the trigger particle, null if there is none
+     */
+    public LorentzVector getLorentzVector(double mass) {
+        if(itrigger < 0) return null;
+        LorentzVector vec = new LorentzVector();
+        vec.setPxPyPzM(px,py,pz,mass);
+        return vec;
+    }
+
+}
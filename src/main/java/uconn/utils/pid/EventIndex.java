@@ -0,0 +1,142 @@
+package uconn.utils.pid;
+
+import org.jlab.jnp.hipo4.data.Bank;
+
+public class EventIndex {
+    /**
+     * rows of one detector bank grouped by pindex
+     */
+    private static class BankIndex {
+        private final int[] offsets; ///< first slot of each pindex group, offsets[npart] is the number of indexed rows
+        private final int[] rows; ///< bank rows grouped by pindex, bank order is kept inside each group
+        private final byte[] detectors; ///< detector id of each slot
+        private final byte[] layers; ///< layer of each slot
+
+
+        /**
+         * @param bank detector bank
+         * @param ipindex,idetector,ilayer column indices of pindex, detector and layer, ilayer is -1 if the bank has no layer column
+         */
+        private BankIndex(Bank bank, int ipindex, int idetector, int ilayer) {
+            int nrows = bank.getRows();
+            short[] pindex = new short[nrows];
+            byte[] detector = new byte[nrows];
+            byte[] layer = new byte[nrows];
+
+            int npart = 0;
+            for(int irow=0; irow<nrows; irow++) {
+                pindex[irow] = bank.getShort(ipindex, irow);
+                detector[irow] = bank.getByte(idetector, irow);
+                if(ilayer>=0) layer[irow] = bank.getByte(ilayer, irow);
+                if(pindex[irow] >= npart) npart = pindex[irow]+1;
+            }
+
+            offsets = new int[npart+1];
+            for(int irow=0; irow<nrows; irow++)
+                if(pindex[irow] >= 0) offsets[pindex[irow]+1]++;
+            for(int ip=0; ip<npart; ip++)
+                offsets[ip+1] += offsets[ip];
+
+            int[] fill = new int[npart];
+            rows = new int[offsets[npart]];
+            detectors = new byte[offsets[npart]];
+            layers = new byte[offsets[npart]];
+            for(int irow=0; irow<nrows; irow++) {
+                if(pindex[irow] < 0) continue;
+                int islot = offsets[pindex[irow]] + fill[pindex[irow]]++;
+                rows[islot] = irow;
+                detectors[islot] = detector[irow];
+                layers[islot] = layer[irow];
+            }
+        }
+
+
+        /**
+         * @return the first row matching pindex and detector, -1 if there is none
+         */
+        private int getFirstRow(int pindex, int detector) {
+            if(pindex < 0 || pindex >= offsets.length-1) return -1;
+            for(int islot=offsets[pindex]; islot<offsets[pindex+1]; islot++)
+                if(detectors[islot] == detector) return rows[islot];
+            return -1;
+        }
+
+
+        /**
+         * @return the last row matching pindex, detector and layer, -1 if there is none
+         */
+        private int getLastRow(int pindex, int detector, int layer) {
+            if(pindex < 0 || pindex >= offsets.length-1) return -1;
+            for(int islot=offsets[pindex+1]-1; islot>=offsets[pindex]; islot--)
+                if(detectors[islot] == detector && layers[islot] == layer) return rows[islot];
+            return -1;
+        }
+    }
+
+
+
+    private final BankIndex calindex; ///< index over REC::Calorimeter
+    private final BankIndex ccindex; ///< index over REC::Cherenkov
+    private final BankIndex trajindex; ///< index over REC::Traj
+
+
+
+    /** A constructor, every bank is read in one linear pass
+     * @param calbank,ccbank,trajbank calorimeter, cherenkov and trajectory banks, any of them can be null
+     */
+    public EventIndex(Bank calbank, Bank ccbank, Bank trajbank) {
+        if(calbank!=null) {
+            Columns.Calorimeter cal = Columns.Calorimeter.of(calbank);
+            this.calindex = new BankIndex(calbank, cal.pindex, cal.detector, cal.layer);
+        } else this.calindex = null;
+
+        if(ccbank!=null) {
+            Columns.Cherenkov cc = Columns.Cherenkov.of(ccbank);
+            this.ccindex = new BankIndex(ccbank, cc.pindex, cc.detector, -1);
+        } else this.ccindex = null;
+
+        if(trajbank!=null) {
+            Columns.Traj traj = Columns.Traj.of(trajbank);
+            this.trajindex = new BankIndex(trajbank, traj.pindex, traj.detector, traj.layer);
+        } else this.trajindex = null;
+    }
+
+
+
+    /**
+     * @param pindex particle index
+     * @param detector detector id
+     * @param layer detector layer
+     * @return the last REC::Calorimeter row for this particle, detector and layer, -1 if there is none
+     */
+    public int getCalorimeterRow(int pindex, int detector, int layer) {
+        if(calindex==null) return -1;
+        return calindex.getLastRow(pindex, detector, layer);
+    }
+
+
+
+    /**
+     * @param pindex particle index
+     * @param detector detector id
+     * @return the first REC::Cherenkov row for this particle and detector, -1 if there is none
+     */
+    public int getCherenkovRow(int pindex, int detector) {
+        if(ccindex==null) return -1;
+        return ccindex.getFirstRow(pindex, detector);
+    }
+
+
+
+    /**
+     * @param pindex particle index
+     * @param detector detector id
+     * @param layer detector layer
+     * @return the last REC::Traj row for this particle, detector and layer, -1 if there is none
+     */
+    public int getTrajRow(int pindex, int detector, int layer) {
+        if(trajindex==null) return -1;
+        return trajindex.getLastRow(pindex, detector, layer);
+    }
+
+}
@@ -0,0 +1,203 @@
+package uconn.utils.pid;
+
+import org.jlab.clas.physics.LorentzVector;
+
+public class FourVector {
+    /*
+     * Mutable four-momentum for inner loops: candidates write into a holder owned by the caller,
+     * arithmetic modifies the holder in place and returns it, so invariant and missing masses
+     * can be computed with a few reusable holders and no allocation per combination.
+     * Four-vectors can also be stored in double[] as (px, py, pz, e) at a given offset.
+     */
+
+    public static final double ELECTRON_MASS = 0.000511; ///< electron mass in GeV
+    public static final double PION_MASS = 0.13957; ///< charged pion mass in GeV
+    public static final double KAON_MASS = 0.493677; ///< charged kaon mass in GeV
+    public static final double PROTON_MASS = 0.938272; ///< proton mass in GeV
+    public static final double PHOTON_MASS = 0; ///< photon mass in GeV
+
+    private double px, py, pz, e; ///< components
+
+
+
+    /**
+     * @param pid PDG code
+     * @return mass of the particle in GeV, 0 for unknown codes
+     */
+    public static double mass(int pid) {
+        switch(Math.abs(pid)) {
+        case 11: return ELECTRON_MASS;
+        case 211: return PION_MASS;
+        case 321: return KAON_MASS;
+        case 2212: return PROTON_MASS;
+        default: return 0;
+        }
+    }
+
+
+
+    /**
+     * @param px,py,pz momentum
+     * @param mass mass
+     * @return this four-vector
+     */
+    public FourVector setPxPyPzM(double px, double py, double pz, double mass) {
+        return setPxPyPzE(px, py, pz, Math.sqrt(px*px + py*py + pz*pz + mass*mass));
+    }
+
+
+
+    /**
+     * @param px,py,pz momentum
+     * @param e energy
+     * @return this four-vector
+     */
+    public FourVector setPxPyPzE(double px, double py, double pz, double e) {
+        this.px = px;
+        this.py = py;
+        this.pz = pz;
+        this.e = e;
+        return this;
+    }
+
+
+
+    /**
+     * @param other four-vector to copy
+     * @return this four-vector
+     */
+    public FourVector set(FourVector other) {
+        return setPxPyPzE(other.px, other.py, other.pz, other.e);
+    }
+
+
+
+    /**
+     * @param vec array with (px, py, pz, e)
+     * @param offset index of px in the array
+     * @return this four-vector
+     */
+    public FourVector set(double[] vec, int offset) {
+        return setPxPyPzE(vec[offset], vec[offset+1], vec[offset+2], vec[offset+3]);
+    }
+
+
+
+    /**
+     * @param vec array to write (px, py, pz, e) to
+     * @param offset index of px in the array
+     */
+    public void get(double[] vec, int offset) {
+        vec[offset] = px;
+        vec[offset+1] = py;
+        vec[offset+2] = pz;
+        vec[offset+3] = e;
+    }
+
+
+
+    /**
+     * @param other four-vector to add
+     * @return this four-vector
+     */
+    public FourVector add(FourVector other) {
+        return setPxPyPzE(px + other.px, py + other.py, pz + other.pz, e + other.e);
+    }
+
+
+
+    /**
+     * @param other four-vector to subtract
+     * @return this four-vector
+     */
+    public FourVector sub(FourVector other) {
+        return setPxPyPzE(px - other.px, py - other.py, pz - other.pz, e - other.e);
+    }
+
+
+
+    /// @return x component of momentum
+    public double px() {
+        return px;
+    }
+
+    /// @return y component of momentum
+    public double py() {
+        return py;
+    }
+
+    /// @return z component of momentum
+    public double pz() {
+        return pz;
+    }
+
+    /// @return energy
+    public double e() {
+        return e;
+    }
+
+
+
+    /**
+     * @return magnitude of momentum
+     */
+    public double p() {
+        return Math.sqrt(px*px + py*py + pz*pz);
+    }
+
+
+
+    /**
+     * @return squared invariant mass, negative for space-like vectors
+     */
+    public double mass2() {
+        return e*e - px*px - py*py - pz*pz;
+    }
+
+
+
+    /**
+     * @return invariant mass, negative square root of -mass2() for space-like vectors
+     */
+    public double mass() {
+        double m2 = mass2();
+        return m2 < 0 ? -Math.sqrt(-m2) : Math.sqrt(m2);
+    }
+
+
+
+    /**
+     * @param a,b four-vectors
+     * @return squared invariant mass of a+b
+     */
+    public static double mass2(FourVector a, FourVector b) {
+        double e = a.e + b.e, px = a.px + b.px, py = a.py + b.py, pz = a.pz + b.pz;
+        return e*e - px*px - py*py - pz*pz;
+    }
+
+
+
+    /**
+     * @param a array with the first four-vector
+     * @param ia index of px of the first four-vector
+     * @param b array with the second four-vector
+     * @param ib index of px of the second four-vector
+     * @return squared invariant mass of the sum
+     */
+    public static double mass2(double[] a, int ia, double[] b, int ib) {
+        double e = a[ia+3] + b[ib+3], px = a[ia] + b[ib], py = a[ia+1] + b[ib+1], pz = a[ia+2] + b[ib+2];
+        return e*e - px*px - py*py - pz*pz;
+    }
+
+
+
+    /**
+     * @return new LorentzVector with the same components
+     */
+    public LorentzVector toLorentzVector() {
+        LorentzVector vec = new LorentzVector();
+        vec.setPxPyPzE(px, py, pz, e);
+        return vec;
+    }
+
+}
@@ -0,0 +1,120 @@
+package uconn.utils.pid;
+
+public class SectorGeometry {
+    /*
+     * Sector geometry of the forward detector without trigonometric calls per particle.
+     * Sector s is centered at phi = 60*(s-1) degrees and covers [60*(s-1)-30, 60*(s-1)+30),
+     * rotation tables hold exactly the values of Math.cos/Math.sin(Math.toRadians(-60*(s-1))).
+     */
+
+    private static final double SQRT3 = Math.sqrt(3); ///< tan(60 deg), sector boundaries are at y*sqrt(3) = +-x
+
+    private static final double[] COS = new double[6]; ///< cos of rotation of sector s to sector 1 frame
+    private static final double[] SIN = new double[6]; ///< sin of rotation of sector s to sector 1 frame
+
+    static {
+        for(int isec=0; isec<6; isec++) {
+            COS[isec] = Math.cos(Math.toRadians(-60*isec));
+            SIN[isec] = Math.sin(Math.toRadians(-60*isec));
+        }
+    }
+
+
+
+    /**
+     * @param sector sector 1-6
+     * @return cosine of rotation from this sector to sector 1 frame
+     */
+    public static double cos(int sector) {
+        return COS[sector-1];
+    }
+
+
+
+    /**
+     * @param sector sector 1-6
+     * @return sine of rotation from this sector to sector 1 frame
+     */
+    public static double sin(int sector) {
+        return SIN[sector-1];
+    }
+
+
+
+    /**
+     * @param sector sector 1-6
+     * @param x,y position in lab frame
+     * @return x rotated to sector 1 frame
+     */
+    public static double rotateX(int sector, double x, double y) {
+        return x * COS[sector-1] - y * SIN[sector-1];
+    }
+
+
+
+    /**
+     * @param sector sector 1-6
+     * @param x,y position in lab frame
+     * @return y rotated to sector 1 frame
+     */
+    public static double rotateY(int sector, double x, double y) {
+        return x * SIN[sector-1] + y * COS[sector-1];
+    }
+
+
+
+    /**
+     * @param x,y,z position in lab frame
+     * @return polar angle in degrees
+     */
+    public static double localTheta(double x, double y, double z) {
+        double r = Math.sqrt(Math.pow(x,2) + Math.pow(y,2) + Math.pow(z,2));
+        return Math.toDegrees(Math.acos(z/r));
+    }
+
+
+
+    /**
+     * @param sector sector 1-6
+     * @param x,y,z position in lab frame
+     * @return azimuthal angle in degrees relative to the sector center, 5000 if the sector is not 1-6
+     */
+    public static double localPhi(int sector, double x, double y, double z) {
+        double r = Math.sqrt(Math.pow(x,2) + Math.pow(y,2) + Math.pow(z,2));
+        double phi_raw = Math.toDegrees(Math.atan2(y/r, x/r));
+
+        double phi = 5000;
+        if (sector == 1) phi = phi_raw;
+        if (sector == 2) phi = phi_raw - 60;
+        if (sector == 3) phi = phi_raw - 120;
+        if (sector == 4 && phi_raw > 0) phi = phi_raw - 180;
+        if (sector == 4 && phi_raw < 0) phi = phi_raw + 180;
+        if (sector == 5) phi = phi_raw + 120;
+        if (sector == 6) phi = phi_raw + 60;
+        return phi;
+    }
+
+
+
+    /**
+     * determine sector from the azimuthal direction of (x, y) by comparing slopes with sector boundaries,
+     * (0, 0) follows Math.atan2 convention: sector 1 for x = +0 and sector 4 for x = -0
+     * @param x,y position in lab frame
+     * @return sector 1-6, 0 for NaN
+     */
+    public static int sector(double x, double y) {
+        if(x > 0) {
+            if(y >= 0) return y*SQRT3 < x ? 1 : 2;
+            return -y*SQRT3 <= x ? 1 : 6;
+        } else if(x < 0) {
+            if(y >= 0) return y*SQRT3 > -x ? 3 : 4;
+            return -y*SQRT3 < -x ? 4 : 5;
+        } else if(x == 0) {
+            if(y > 0) return 3;
+            if(y < 0) return 6;
+            if(y == 0) return 1/x > 0 ? 1 : 4;
+        }
+        return 0;
+    }
+
+}
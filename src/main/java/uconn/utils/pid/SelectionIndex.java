@@ -0,0 +1,357 @@
+package uconn.utils.pid;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.io.HipoReader;
+import org.jlab.jnp.hipo4.io.HipoWriter;
+
+public class SelectionIndex {
+    /*
+     * Persistent record of which particle rows passed which cuts, per file.
+     * Events of a file are numbered in the order they are added, each one keeps its index in the file,
+     * so skipped or reordered events are still extracted correctly.
+     * Rows of all events of a file are numbered consecutively, row offsets of the events map them back,
+     * every key (e.g. "electron.EC_SAMPLING" or a named selection) holds a BitSet over rows.
+     * Charged hadrons are stored per charge (e.g. "pip" from evaluatePip() and "pim" from evaluatePim()),
+     * so "pip.PID" holds only pi+ rows.
+     * A new selection which is a boolean combination of stored keys is BitSet algebra,
+     * events with a passing row are then extracted by index with HipoReader.getEvent,
+     * without building candidates again.
+     * The index is saved as one Deflater-compressed stream.
+     */
+
+    private static final int MAGIC = 0x53454c49; ///< "SELI"
+    private static final int VERSION = 2; ///< file format version, 2 adds the file index of every event
+
+    private final Map<String, FileIndex> files = new LinkedHashMap<>(); ///< index of each file by name
+
+
+
+    /**
+     * @param filename input file name
+     * @return index of the file, created empty on first call
+     */
+    public FileIndex file(String filename) {
+        return files.computeIfAbsent(filename, name -> new FileIndex());
+    }
+
+
+
+    /**
+     * @return names of all indexed files
+     */
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+
+
+    /**
+     * @param species species name, e.g. "electron"
+     * @param cut cut of the species
+     * @return key under which the cut is stored
+     */
+    public static String key(String species, Enum<?> cut) {
+        return species + "." + cut.name();
+    }
+
+
+
+    /**
+     * save the index compressed with Deflater
+     * @param filename output file
+     */
+    public void save(String filename) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(filename))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            for(Map.Entry<String, FileIndex> entry: files.entrySet()) {
+                FileIndex index = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(index.nevents);
+                for(int ievent=0; ievent<=index.nevents; ievent++)
+                    out.writeInt(index.offsets[ievent]);
+                for(int ievent=0; ievent<index.nevents; ievent++)
+                    out.writeInt(index.fileevents[ievent]);
+                out.writeInt(index.rows.size());
+                for(Map.Entry<String, BitSet> row: index.rows.entrySet()) {
+                    long[] words = row.getValue().toLongArray();
+                    out.writeUTF(row.getKey());
+                    out.writeInt(words.length);
+                    for(long word: words)
+                        out.writeLong(word);
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * @param filename file written by save()
+     * @return loaded index
+     */
+    public static SelectionIndex load(String filename) throws IOException {
+        SelectionIndex selindex = new SelectionIndex();
+        try(DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(new FileInputStream(filename))))) {
+            if(in.readInt() != MAGIC)
+                throw new IOException(filename + " is not a selection index");
+            int version = in.readInt();
+            if(version != 1 && version != VERSION)
+                throw new IOException("unsupported selection index version " + version + " in " + filename);
+
+            int nfiles = in.readInt();
+            for(int ifile=0; ifile<nfiles; ifile++) {
+                FileIndex index = selindex.file(in.readUTF());
+                index.nevents = in.readInt();
+                index.offsets = new int[index.nevents + 1];
+                for(int ievent=0; ievent<=index.nevents; ievent++)
+                    index.offsets[ievent] = in.readInt();
+                index.fileevents = new int[index.nevents + 1];
+                for(int ievent=0; ievent<index.nevents; ievent++)
+                    index.fileevents[ievent] = version==1 ? ievent : in.readInt();
+                int nkeys = in.readInt();
+                for(int ikey=0; ikey<nkeys; ikey++) {
+                    String key = in.readUTF();
+                    long[] words = new long[in.readInt()];
+                    for(int iword=0; iword<words.length; iword++)
+                        words[iword] = in.readLong();
+                    index.rows.put(key, BitSet.valueOf(words));
+                }
+            }
+        }
+        return selindex;
+    }
+
+
+
+    public static final class FileIndex {
+        /*
+         * Rows and cut bitmaps of one file, events are numbered in the order they are added
+         * and map to their HipoReader.getEvent indices through fileevents
+         */
+
+        private int nevents = 0; ///< number of events
+        private int[] offsets = new int[1024]; ///< first row of each event, offsets[nevents] is the number of rows
+        private int[] fileevents = new int[1024]; ///< index of each event in the file
+        private final Map<String, BitSet> rows = new LinkedHashMap<>(); ///< passing rows of each key
+
+
+
+        private FileIndex() {
+        }
+
+
+
+        /**
+         * add the event following the last added one in the file, the first event of the file if none was added
+         * @param nrows number of particle rows in the event
+         * @return event number
+         */
+        public int addEvent(int nrows) {
+            return addEvent(nevents==0 ? 0 : fileevents[nevents-1] + 1, nrows);
+        }
+
+
+
+        /**
+         * add an event of the file, events can be skipped or added in any order
+         * @param ifile index of the event in the file, as used by HipoReader.getEvent
+         * @param nrows number of particle rows in the event
+         * @return event number
+         */
+        public int addEvent(int ifile, int nrows) {
+            if(ifile < 0)
+                throw new IndexOutOfBoundsException("event index in the file " + ifile);
+            if(nevents + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2*offsets.length);
+                fileevents = Arrays.copyOf(fileevents, offsets.length);
+            }
+            offsets[nevents + 1] = offsets[nevents] + nrows;
+            fileevents[nevents] = ifile;
+            return nevents++;
+        }
+
+
+
+        /**
+         * mark a row as passing
+         * @param key cut or selection name
+         * @param ievent event number
+         * @param irow row in the event
+         */
+        public void set(String key, int ievent, int irow) {
+            rows.computeIfAbsent(key, k -> new BitSet()).set(row(ievent, irow));
+        }
+
+
+
+        /**
+         * store all cut results of one candidate
+         * @param species species name used in keys, e.g. "electron", or "pip" and "pim" for the two pion masks
+         * @param ievent event number
+         * @param irow row in the event
+         * @param result cut mask of this species, e.g. evaluateAll() or evaluatePip()
+         * @param type cut enum class of the candidate
+         */
+        public <C extends Enum<C>> void setCuts(String species, int ievent, int irow, int result, Class<C> type) {
+            int row = row(ievent, irow);
+            for(C cut: type.getEnumConstants()) {
+                BitSet bits = rows.computeIfAbsent(key(species, cut), k -> new BitSet());
+                if((result & CutMask.bit(cut)) != 0) bits.set(row);
+            }
+        }
+
+
+
+        /**
+         * @return global row of a row in an event
+         */
+        private int row(int ievent, int irow) {
+            if(ievent < 0 || ievent >= nevents || irow < 0 || irow >= offsets[ievent+1] - offsets[ievent])
+                throw new IndexOutOfBoundsException("event " + ievent + " row " + irow);
+            return offsets[ievent] + irow;
+        }
+
+
+
+        /**
+         * @param key cut or selection name
+         * @return copy of the passing rows of this key, empty if the key was never set
+         */
+        public BitSet rows(String key) {
+            BitSet bits = rows.get(key);
+            return bits==null ? new BitSet() : (BitSet) bits.clone();
+        }
+
+
+
+        /**
+         * @param keys cut or selection names
+         * @return rows passing all keys
+         */
+        public BitSet allOf(String ...keys) {
+            BitSet bits = new BitSet();
+            bits.set(0, offsets[nevents]);
+            for(String key: keys)
+                bits.and(rows(key));
+            return bits;
+        }
+
+
+
+        /**
+         * @param keys cut or selection names
+         * @return rows passing any of the keys
+         */
+        public BitSet anyOf(String ...keys) {
+            BitSet bits = new BitSet();
+            for(String key: keys)
+                bits.or(rows(key));
+            return bits;
+        }
+
+
+
+        /**
+         * @param rowbits selected rows
+         * @return event numbers of events with at least one selected row, see getFileEvent
+         */
+        public BitSet events(BitSet rowbits) {
+            BitSet eventbits = new BitSet(nevents);
+            int ievent = 0;
+            for(int row=rowbits.nextSetBit(0); row>=0 && row<offsets[nevents]; row=rowbits.nextSetBit(row+1)) {
+                while(offsets[ievent+1] <= row) ievent++;
+                eventbits.set(ievent);
+                row = offsets[ievent+1] - 1;
+            }
+            return eventbits;
+        }
+
+
+
+        /**
+         * copy selected events from the indexed file, reading them by their index in the file
+         * @param reader opened reader of the indexed file
+         * @param eventbits selected event numbers
+         * @param writer opened output writer
+         * @return number of copied events
+         */
+        public int extract(HipoReader reader, BitSet eventbits, HipoWriter writer) {
+            Event event = new Event();
+            int ncopied = 0;
+            for(int ievent=eventbits.nextSetBit(0); ievent>=0 && ievent<nevents; ievent=eventbits.nextSetBit(ievent+1)) {
+                reader.getEvent(event, fileevents[ievent]);
+                writer.addEvent(event);
+                ncopied++;
+            }
+            return ncopied;
+        }
+
+
+
+        /**
+         * @return number of events
+         */
+        public int getEventCount() {
+            return nevents;
+        }
+
+
+
+        /**
+         * @return number of rows in all events
+         */
+        public int getRowCount() {
+            return offsets[nevents];
+        }
+
+
+
+        /**
+         * @param ievent event number
+         * @return first row of the event
+         */
+        public int getRowOffset(int ievent) {
+            return offsets[ievent];
+        }
+
+
+
+        /**
+         * @param ievent event number
+         * @return index of the event in the file, as used by HipoReader.getEvent
+         */
+        public int getFileEvent(int ievent) {
+            if(ievent < 0 || ievent >= nevents)
+                throw new IndexOutOfBoundsException("event " + ievent);
+            return fileevents[ievent];
+        }
+
+
+
+        /**
+         * @return all stored keys
+         */
+        public Set<String> getKeys() {
+            return Collections.unmodifiableSet(rows.keySet());
+        }
+
+    }
+
+}
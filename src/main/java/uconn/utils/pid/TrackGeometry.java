@@ -0,0 +1,111 @@
+package uconn.utils.pid;
+
+public final class TrackGeometry {
+    /*
+     * Geometry of one track at DC regions 1-3 in the frame of its DC sector:
+     * local theta and phi used by the hadron theta-phi fiducial cut and x, y rotated to sector 1 used by the XY cut.
+     * Values are computed on first request for each region and kept,
+     * the record is shared by all copies of a candidate (e.g. one track tested as pion, kaon and proton)
+     * and dropped by a candidate when its DC positions change.
+     * Like Candidate it is not meant to be used from several threads at once.
+     */
+
+    private final int dc_sector; ///< DC sector of the track
+    private final float[] xyz; ///< x, y, z of regions 1, 2 and 3
+    private final double[] values = new double[12]; ///< theta, phi, rotated x and rotated y of regions 1, 2 and 3
+    private int computed = 0; ///< bit 1<<(region-1) for angles and 1<<(region+2) for rotated positions which are computed
+
+
+
+    /** A constructor
+     * @param dc_sector DC sector of the track
+     * @param xyz x, y, z of regions 1, 2 and 3
+     */
+    TrackGeometry(int dc_sector, float[] xyz) {
+        this.dc_sector = dc_sector;
+        this.xyz = xyz;
+    }
+
+
+
+    /**
+     * @return DC sector the local angles and positions refer to
+     */
+    public int getSector() {
+        return dc_sector;
+    }
+
+
+
+    /**
+     * @param region DC region
+     * @return local theta in degrees
+     */
+    public double getTheta(int region) {
+        angles(region);
+        return values[4*(region-1)];
+    }
+
+
+
+    /**
+     * @param region DC region
+     * @return phi in degrees relative to the sector center, 5000 if the sector is not 1-6
+     */
+    public double getPhi(int region) {
+        angles(region);
+        return values[4*(region-1)+1];
+    }
+
+
+
+    /**
+     * @param region DC region
+     * @return x rotated to sector 1 frame, NaN if the sector is not 1-6
+     */
+    public double getX(int region) {
+        rotated(region);
+        return values[4*(region-1)+2];
+    }
+
+
+
+    /**
+     * @param region DC region
+     * @return y rotated to sector 1 frame, NaN if the sector is not 1-6
+     */
+    public double getY(int region) {
+        rotated(region);
+        return values[4*(region-1)+3];
+    }
+
+
+
+    /**
+     * compute local theta and phi of a region if they are not computed yet
+     */
+    private void angles(int region) {
+        int bit = 1 << (region-1);
+        if((computed & bit) != 0) return;
+        int i = 3*(region-1);
+        values[4*(region-1)] = SectorGeometry.localTheta(xyz[i], xyz[i+1], xyz[i+2]);
+        values[4*(region-1)+1] = SectorGeometry.localPhi(dc_sector, xyz[i], xyz[i+1], xyz[i+2]);
+        computed |= bit;
+    }
+
+
+
+    /**
+     * compute rotated x and y of a region if they are not computed yet
+     */
+    private void rotated(int region) {
+        int bit = 1 << (region+2);
+        if((computed & bit) != 0) return;
+        int i = 3*(region-1);
+        boolean valid = dc_sector>=1 && dc_sector<=6;
+        values[4*(region-1)+2] = valid ? SectorGeometry.rotateX(dc_sector, xyz[i], xyz[i+1]) : Double.NaN;
+        values[4*(region-1)+3] = valid ? SectorGeometry.rotateY(dc_sector, xyz[i], xyz[i+1]) : Double.NaN;
+        computed |= bit;
+    }
+
+}
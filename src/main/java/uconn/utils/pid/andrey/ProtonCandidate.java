@@ -1,10 +1,15 @@
 package uconn.utils.pid.andrey;
 
+import java.util.EnumSet;
+import java.util.function.Predicate;
 import org.jlab.clas.physics.LorentzVector;
-import org.jlab.detector.base.DetectorType;
-import java.util.stream.IntStream;
 import org.jlab.jnp.hipo4.data.Bank;
 import uconn.utils.pid.Candidate;
+import uconn.utils.pid.Columns;
+import uconn.utils.pid.CutPlan;
+import uconn.utils.pid.EventContext;
+import uconn.utils.pid.EventIndex;
+import uconn.utils.pid.FourVector;
 import uconn.utils.pid.stefan.HadronCuts;
 import uconn.utils.pid.stefan.ElectronCuts;
 
@@ -20,6 +25,8 @@ public class ProtonCandidate extends Candidate {
         CHI2PID ///< cut on chi2pid
     }
 
+    public static final double MASS = FourVector.PROTON_MASS; ///< proton mass in GeV
+
 
 
     /** A Constructor
@@ -31,6 +38,15 @@ public class ProtonCandidate extends Candidate {
 
 
 
+    /** A Constructor
+     * @param other candidate with already decoded bank information
+     */
+    public ProtonCandidate(Candidate other) {
+        super(other);
+    }
+
+
+
     /**
      * return ProtonCandidate instance
      * @param ipart particle index
@@ -38,28 +54,48 @@ public class ProtonCandidate extends Candidate {
      * @param isinbending true for inbending, false for outbending
      */
     public static ProtonCandidate getProtonCandidate(int ipart, Bank recbank, Bank trajbank, boolean isinbending) {
+        return getProtonCandidate(ipart, recbank, trajbank, new EventIndex(null, null, trajbank), isinbending);
+    }
+
+
+
+    /**
+     * return ProtonCandidate instance
+     * @param ipart particle index
+     * @param recbank,trajbank particle and trajectory banks
+     * @param index event index shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static ProtonCandidate getProtonCandidate(int ipart, Bank recbank, Bank trajbank, EventIndex index, boolean isinbending) {
+        return getProtonCandidate(ipart, recbank, trajbank, index, recbank==null ? null : EventContext.firstRow(recbank), isinbending);
+    }
+
+
+
+    /**
+     * return ProtonCandidate instance
+     * @param ipart particle index
+     * @param recbank,trajbank particle and trajectory banks
+     * @param index event index shared by all candidates of the event
+     * @param context trigger particle of the event shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static ProtonCandidate getProtonCandidate(int ipart, Bank recbank, Bank trajbank, EventIndex index, EventContext context, boolean isinbending) {
         ProtonCandidate candidate = new ProtonCandidate(ipart);
         if(!isinbending) candidate.setOUTBENDING();
 
         if(recbank!=null) {
-            candidate.setPID(recbank.getInt("pid",ipart));
-            candidate.setStatus(recbank.getShort("status",ipart));
-            candidate.setCHI2PID(recbank.getFloat("chi2pid",ipart));
-            candidate.setVZ(recbank.getFloat("vz",ipart));
-            candidate.setDVZ(recbank.getFloat("vz",ipart) - recbank.getFloat("vz",0));
-            candidate.setPxyz(recbank.getFloat("px",ipart), recbank.getFloat("py",ipart), recbank.getFloat("pz",ipart));
+            Columns.Particle col = Columns.Particle.of(recbank);
+            candidate.setPID(recbank.getInt(col.pid,ipart));
+            candidate.setStatus(recbank.getShort(col.status,ipart));
+            candidate.setCHI2PID(recbank.getFloat(col.chi2pid,ipart));
+            float vz = recbank.getFloat(col.vz,ipart);
+            candidate.setVZ(vz);
+            context.setDVZ(candidate, vz);
+            candidate.setPxyz(recbank.getFloat(col.px,ipart), recbank.getFloat(col.py,ipart), recbank.getFloat(col.pz,ipart));
         }
 
-        if(trajbank!=null) IntStream.range(0,trajbank.getRows())
-            .filter(i -> trajbank.getShort("pindex",i) == ipart && trajbank.getByte("detector",i) == DetectorType.DC.getDetectorId())
-            .forEach(i -> {
-            if(trajbank.getByte("layer",i) == 6)
-                candidate.setDCxyz(1, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 18)
-                candidate.setDCxyz(2, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 36)
-                candidate.setDCxyz(3, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-        });
+        if(trajbank!=null) candidate.setDCxyz(trajbank, index);
 
         return candidate;
     }
@@ -71,20 +107,44 @@ public class ProtonCandidate extends Candidate {
      */
     public LorentzVector getLorentzVector() {
         LorentzVector vec = null;
-        if(px!=null && py!=null && pz!=null) {
+        if(has(HAS_PXYZ)) {
             vec = new LorentzVector();
-            vec.setPxPyPzM(px,py,pz,0.938272);
+            vec.setPxPyPzM(px,py,pz,MASS);
         }
         return vec;
     }
 
 
 
+    /**
+     * write four-momentum into a reusable holder without allocation
+     * @param vec holder to fill
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(FourVector vec) {
+        return getFourVector(vec, MASS);
+    }
+
+
+
+    /**
+     * write four-momentum as (px, py, pz, e) into an array
+     * @param vec array to write to
+     * @param offset index of px in the array
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(double[] vec, int offset) {
+        return getFourVector(vec, offset, MASS);
+    }
+
+
+
+
     /**
      * @return pid cut
      */
     public boolean cut_PID() {
-        if(pid == null) return false;
+        if(!has(HAS_PID)) return false;
         return pid == 2212;
     }
 
@@ -94,7 +154,7 @@ public class ProtonCandidate extends Candidate {
      * @return if it is detected in forward
      */
     public boolean cut_FORWARD() {
-        if(status==null) return false;
+        if(!has(HAS_STATUS)) return false;
         return status>=2000 && status<4000;
     }
 
@@ -104,7 +164,7 @@ public class ProtonCandidate extends Candidate {
      * @return chi2pid cut
      */
     public boolean cut_CHI2PID() {
-        if(pid==null || chi2pid==null || p==null) return false;
+        if(!has(HAS_PID | HAS_CHI2PID | HAS_P)) return false;
         return HadronCuts.Chi2pid_cut(chi2pid, p, pid);
     }
 
@@ -114,8 +174,8 @@ public class ProtonCandidate extends Candidate {
      * @return fiducial cut on DC region1
      */
     public boolean cut_DC_FIDUCIAL_REG1() {
-        if(dc_sector==null || traj_x1==null || traj_y1==null || traj_z1==null || pid==null) return false;
-            return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 1, traj_x1, traj_y1, traj_z1, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ1 | HAS_PID)) return false;
+            return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 1, getGeometry().getTheta(1), getGeometry().getPhi(1), pid, field==MagField.INBENDING);
     }
 
 
@@ -124,8 +184,8 @@ public class ProtonCandidate extends Candidate {
      * @return fiducial cut on DC region2
      */
     public boolean cut_DC_FIDUCIAL_REG2() {
-        if(dc_sector==null || traj_x2==null || traj_y2==null || traj_z2==null || pid==null) return false;
-            return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 2, traj_x2, traj_y2, traj_z2, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ2 | HAS_PID)) return false;
+            return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 2, getGeometry().getTheta(2), getGeometry().getPhi(2), pid, field==MagField.INBENDING);
     }
 
 
@@ -134,8 +194,8 @@ public class ProtonCandidate extends Candidate {
      * @return fiducial cut on DC region3
      */
     public boolean cut_DC_FIDUCIAL_REG3() {
-        if(dc_sector==null || traj_x3==null || traj_y3==null || traj_z3==null || pid==null) return false;
-            return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 3, traj_x3, traj_y3, traj_z3, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ3 | HAS_PID)) return false;
+            return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 3, getGeometry().getTheta(3), getGeometry().getPhi(3), pid, field==MagField.INBENDING);
     }
 
 
@@ -144,53 +204,79 @@ public class ProtonCandidate extends Candidate {
      * @return cut on vertex position
      */
     public boolean cut_DELTA_VZ() {
-        if(pid==null || dvz==null) return false;
+        if(!has(HAS_PID | HAS_DVZ)) return false;
         return HadronCuts.Delta_vz_cut(pid, dvz);
     }
 
 
 
     /**
-     * testing against all proton cuts
+     * @return test of one proton cut
      */
-    public boolean isproton() {
-        return isproton(Cut.values());
+    private static Predicate<ProtonCandidate> test(Cut cut) {
+        switch(cut) {
+        case PID: return ProtonCandidate::cut_PID;
+        case DC_FIDUCIAL_REG1: return ProtonCandidate::cut_DC_FIDUCIAL_REG1;
+        case DC_FIDUCIAL_REG2: return ProtonCandidate::cut_DC_FIDUCIAL_REG2;
+        case DC_FIDUCIAL_REG3: return ProtonCandidate::cut_DC_FIDUCIAL_REG3;
+        case DELTA_VZ: return ProtonCandidate::cut_DELTA_VZ;
+        case FORWARD: return ProtonCandidate::cut_FORWARD;
+        case CHI2PID: return ProtonCandidate::cut_CHI2PID;
+        default: return candidate -> false;
+        }
     }
 
 
 
+    private static final CutPlan<Cut, ProtonCandidate> ALL_CUTS = CutPlan.compile(Cut.class, EnumSet.allOf(Cut.class), ProtonCandidate::test); ///< all proton cuts in enum order
+
+
+
     /**
-     * assembly of multiple proton cuts
-     * @param applycuts the list of cuts required to apply
+     * compile proton cuts into a plan which can be applied to many candidates
+     * @param cuts the list of cuts in the order they are applied
      */
-    public boolean isproton(Cut ...applycuts) {
-        for(Cut thiscut: applycuts) {
-            if(thiscut == Cut.PID) {
-                if(!cut_PID()) return false;
+    public static CutPlan<Cut, ProtonCandidate> plan(Cut ...cuts) {
+        return CutPlan.compile(Cut.class, ProtonCandidate::test, cuts);
+    }
+
+
+
+    /**
+     * compile proton cuts into a plan which can be applied to many candidates
+     * @param cuts the set of cuts, applied in enum order
+     */
+    public static CutPlan<Cut, ProtonCandidate> plan(EnumSet<Cut> cuts) {
+        return CutPlan.compile(Cut.class, cuts, ProtonCandidate::test);
+    }
 
-            } else if(thiscut == Cut.CHI2PID) {                                                                                                                                          
-                if(!cut_CHI2PID()) return false;
 
-            } else if(thiscut == Cut.FORWARD) {
-                if(!cut_FORWARD()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG1) {
-                if(!cut_DC_FIDUCIAL_REG1()) return false;
+    /**
+     * evaluate all proton cuts at once, without stopping at failed cuts
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask
+     */
+    public int evaluateAll() {
+        return ALL_CUTS.evaluateAll(this);
+    }
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG2) {
-                if(!cut_DC_FIDUCIAL_REG2()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG3) {
-                if(!cut_DC_FIDUCIAL_REG3()) return false;
 
-            } else if(thiscut == Cut.DELTA_VZ) {
-                if(!cut_DELTA_VZ()) return false;
+    /**
+     * testing against all proton cuts
+     */
+    public boolean isproton() {
+        return ALL_CUTS.test(this);
+    }
+
+
 
-            } else {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * assembly of multiple proton cuts
+     * @param applycuts the list of cuts required to apply
+     */
+    public boolean isproton(Cut ...applycuts) {
+        return ALL_CUTS.test(this, applycuts);
     }
 
 }
@@ -0,0 +1,241 @@
+package uconn.utils.pid.stefan;
+
+import java.util.EnumSet;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.detector.base.DetectorType;
+import uconn.utils.pid.Candidate;
+import uconn.utils.pid.CandidateBatch;
+import uconn.utils.pid.Columns;
+import uconn.utils.pid.EventContext;
+import uconn.utils.pid.EventIndex;
+
+public class CandidateFactory {
+    /// This is the enum for candidate species
+    public enum Species {
+        ELECTRON, ///< ElectronCandidate
+        PION, ///< PionCandidate
+        KAON, ///< KaonCandidate
+        PROTON, ///< ProtonCandidate
+        PHOTON ///< PhotonCandidate
+    }
+
+
+
+    private final EnumSet<Species> species; ///< species to build
+    private final boolean isinbending; ///< magnetic field of the run
+    private final Bank recbank; ///< REC::Particle
+    private final Bank calbank; ///< REC::Calorimeter, null if no requested species needs it
+    private final Bank ccbank; ///< REC::Cherenkov, null if no requested species needs it
+    private final Bank trajbank; ///< REC::Traj, null if no requested species needs it
+    private Integer triggerpid = null; ///< PDG code of the trigger particle, null if the trigger is the first REC::Particle row
+    private EventPreFilter prefilter = null; ///< topology check on REC::Particle before detector banks are read, null if not used
+
+
+
+    /** A Constructor
+     * @param schemas schema factory of the input file
+     * @param isinbending true for inbending, false for outbending
+     * @param species the list of species to build, all species if empty
+     */
+    public CandidateFactory(SchemaFactory schemas, boolean isinbending, Species ...species) {
+        this.species = species.length==0 ? EnumSet.allOf(Species.class) : EnumSet.noneOf(Species.class);
+        for(Species sp: species) this.species.add(sp);
+        this.isinbending = isinbending;
+
+        boolean needcal = this.species.contains(Species.ELECTRON) || this.species.contains(Species.PHOTON);
+        boolean needcc = this.species.contains(Species.ELECTRON);
+        boolean needtraj = this.species.contains(Species.ELECTRON) || this.species.contains(Species.PION)
+            || this.species.contains(Species.KAON) || this.species.contains(Species.PROTON);
+
+        recbank = new Bank(schemas.getSchema("REC::Particle"));
+        calbank = needcal ? new Bank(schemas.getSchema("REC::Calorimeter")) : null;
+        ccbank = needcc ? new Bank(schemas.getSchema("REC::Cherenkov")) : null;
+        trajbank = needtraj ? new Bank(schemas.getSchema("REC::Traj")) : null;
+    }
+
+
+
+    /**
+     * build candidates of all requested species for one event,
+     * every bank is read from the event and decoded only once
+     * @param event hipo event
+     * @return candidates of the event
+     */
+    public EventCandidates fromEvent(Event event) {
+        EventCandidates candidates = new EventCandidates();
+        if(!readBanks(event)) return candidates;
+
+        int nrows = recbank.getRows();
+        if(nrows==0) return candidates;
+
+        EventIndex index = new EventIndex(calbank, ccbank, trajbank);
+        Columns.Particle reccol = Columns.Particle.of(recbank);
+        Columns.Calorimeter calcol = calbank==null ? null : Columns.Calorimeter.of(calbank);
+        Columns.Cherenkov cccol = ccbank==null ? null : Columns.Cherenkov.of(ccbank);
+        EventContext context = context(index);
+        candidates.context = context;
+
+        for(int ipart=0; ipart<nrows; ipart++) {
+            Candidate particle = decode(ipart, index, reccol, calcol, cccol, context);
+
+            if(species.contains(Species.ELECTRON)) candidates.electrons.add(new ElectronCandidate(particle));
+            if(species.contains(Species.PION)) candidates.pions.add(new PionCandidate(particle));
+            if(species.contains(Species.KAON)) candidates.kaons.add(new KaonCandidate(particle));
+            if(species.contains(Species.PROTON)) candidates.protons.add(new ProtonCandidate(particle));
+            if(species.contains(Species.PHOTON)) candidates.photons.add(new PhotonCandidate(particle));
+        }
+
+        return candidates;
+    }
+
+
+
+    /**
+     * decode all particles of one event and append them to a columnar batch,
+     * the requested species only decide which banks are read
+     * @param event hipo event
+     * @param batch batch to append to, it must have the same magnetic field as this factory
+     * @param ievent event tag stored with every appended candidate
+     * @return number of appended candidates
+     */
+    public int fromEvent(Event event, CandidateBatch batch, int ievent) {
+        if(!readBanks(event)) return 0;
+
+        int nrows = recbank.getRows();
+        if(nrows==0) return 0;
+
+        EventIndex index = new EventIndex(calbank, ccbank, trajbank);
+        Columns.Particle reccol = Columns.Particle.of(recbank);
+        Columns.Calorimeter calcol = calbank==null ? null : Columns.Calorimeter.of(calbank);
+        Columns.Cherenkov cccol = ccbank==null ? null : Columns.Cherenkov.of(ccbank);
+        EventContext context = context(index);
+
+        for(int ipart=0; ipart<nrows; ipart++)
+            batch.add(decode(ipart, index, reccol, calcol, cccol, context), ievent);
+
+        return nrows;
+    }
+
+
+
+    /**
+     * classify all particles of one event, every particle is decoded once and tested against all hypotheses,
+     * the factory species must need the same banks as the hypotheses, cuts on banks which are not read fail
+     * @param event hipo event
+     * @param classifier species hypotheses to test
+     * @return mask of passed hypotheses for each REC::Particle row, empty if the event was rejected by the pre-filter
+     */
+    public int[] classify(Event event, MultiHypothesisClassifier classifier) {
+        if(!readBanks(event)) return new int[0];
+
+        int nrows = recbank.getRows();
+        int[] masks = new int[nrows];
+        if(nrows==0) return masks;
+
+        EventIndex index = new EventIndex(calbank, ccbank, trajbank);
+        Columns.Particle reccol = Columns.Particle.of(recbank);
+        Columns.Calorimeter calcol = calbank==null ? null : Columns.Calorimeter.of(calbank);
+        Columns.Cherenkov cccol = ccbank==null ? null : Columns.Cherenkov.of(ccbank);
+        EventContext context = context(index);
+
+        for(int ipart=0; ipart<nrows; ipart++)
+            masks[ipart] = classifier.classify(decode(ipart, index, reccol, calcol, cccol, context));
+
+        return masks;
+    }
+
+
+
+    /**
+     * @param triggerpid PDG code of the trigger particle, the first REC::Particle row with negative status and this code,
+     * null to use the first REC::Particle row (default)
+     */
+    public void setTriggerPID(Integer triggerpid) {
+        this.triggerpid = triggerpid;
+    }
+
+
+
+    /**
+     * @return trigger particle of the event in the banks
+     */
+    private EventContext context(EventIndex index) {
+        if(triggerpid == null) return EventContext.firstRow(recbank, calbank, index);
+        return EventContext.trigger(recbank, calbank, index, triggerpid);
+    }
+
+
+
+    /**
+     * @param prefilter topology check on REC::Particle, events it rejects give no candidates
+     * and their detector banks are not read, null to build candidates for all events
+     */
+    public void setPreFilter(EventPreFilter prefilter) {
+        this.prefilter = prefilter;
+    }
+
+
+
+    /**
+     * read all needed banks from the event, detector banks only if the pre-filter accepts the event
+     * @return false if the event was rejected by the pre-filter
+     */
+    private boolean readBanks(Event event) {
+        event.read(recbank);
+        if(prefilter!=null && !prefilter.accept(recbank)) return false;
+
+        if(calbank!=null) event.read(calbank);
+        if(ccbank!=null) event.read(ccbank);
+        if(trajbank!=null) event.read(trajbank);
+        return true;
+    }
+
+
+
+    /**
+     * decode all bank information for one particle
+     * @param ipart particle index
+     * @param index event index over detector banks
+     * @param reccol,calcol,cccol resolved columns of particle, calorimeter and cherenkov banks
+     * @param context trigger particle of the event
+     */
+    private Candidate decode(int ipart, EventIndex index, Columns.Particle reccol, Columns.Calorimeter calcol, Columns.Cherenkov cccol, EventContext context) {
+        Candidate particle = new Candidate(ipart);
+        if(!isinbending) particle.setOUTBENDING();
+
+        float vz = recbank.getFloat(reccol.vz,ipart);
+        particle.setPID(recbank.getInt(reccol.pid,ipart));
+        particle.setStatus(recbank.getShort(reccol.status,ipart));
+        particle.setCHI2PID(recbank.getFloat(reccol.chi2pid,ipart));
+        particle.setBETA(recbank.getFloat(reccol.beta,ipart));
+        particle.setVZ(vz);
+        context.setDVZ(particle, vz);
+        particle.setPxyz(recbank.getFloat(reccol.px,ipart), recbank.getFloat(reccol.py,ipart), recbank.getFloat(reccol.pz,ipart));
+
+        if(ccbank!=null) {
+            int icc = index.getCherenkovRow(ipart, DetectorType.HTCC.getDetectorId());
+            if(icc>=0) particle.setNPHE(ccbank.getFloat(cccol.nphe, icc));
+        }
+
+        if(calbank!=null) {
+            int ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 1);
+            if(ical>=0) {
+                particle.setPCALsector(calbank.getByte(calcol.sector,ical));
+                particle.setPCALenergy(calbank.getFloat(calcol.energy,ical));
+                particle.setPCALvw(calbank.getFloat(calcol.lv,ical), calbank.getFloat(calcol.lw,ical));
+                particle.setPCALxyz(calbank.getFloat(calcol.x,ical), calbank.getFloat(calcol.y,ical), calbank.getFloat(calcol.z,ical));
+            }
+            ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 4);
+            if(ical>=0) particle.setECINenergy(calbank.getFloat(calcol.energy,ical));
+            ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 7);
+            if(ical>=0) particle.setECOUTenergy(calbank.getFloat(calcol.energy,ical));
+        }
+
+        if(trajbank!=null) particle.setDCxyz(trajbank, index);
+
+        return particle;
+    }
+
+}
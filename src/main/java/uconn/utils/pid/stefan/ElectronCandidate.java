@@ -1,10 +1,16 @@
 package uconn.utils.pid.stefan;
 
+import java.util.EnumSet;
+import java.util.function.Predicate;
 import org.jlab.clas.physics.LorentzVector;
 import org.jlab.jnp.hipo4.data.Bank;
 import org.jlab.detector.base.DetectorType;
-import java.util.stream.IntStream;
 import uconn.utils.pid.Candidate;
+import uconn.utils.pid.CandidateBatch;
+import uconn.utils.pid.Columns;
+import uconn.utils.pid.CutPlan;
+import uconn.utils.pid.EventIndex;
+import uconn.utils.pid.FourVector;
 import uconn.utils.pid.Candidate.Level;
 
 public class ElectronCandidate extends Candidate {
@@ -21,6 +27,8 @@ public class ElectronCandidate extends Candidate {
         DC_VERTEX ///< cut on DC Z vertex
     }
 
+    public static final double MASS = FourVector.ELECTRON_MASS; ///< electron mass in GeV
+
 
 
     /**
@@ -39,6 +47,15 @@ public class ElectronCandidate extends Candidate {
 
 
 
+    /** A Constructor
+     * @param other candidate with already decoded bank information
+     */
+    public ElectronCandidate(Candidate other) {
+        super(other);
+    }
+
+
+
     /**
      * return ElectronCandidate instance
      * @param ipart particle index
@@ -46,40 +63,48 @@ public class ElectronCandidate extends Candidate {
      * @param isinbending true for inbending, false for outbending
      */
     public static ElectronCandidate getElectronCandidate(int ipart, Bank recbank, Bank calbank, Bank ccbank, Bank trajbank, boolean isinbending) {
+        return getElectronCandidate(ipart, recbank, calbank, ccbank, trajbank, new EventIndex(calbank, ccbank, trajbank), isinbending);
+    }
+
+
+
+    /**
+     * return ElectronCandidate instance
+     * @param ipart particle index
+     * @param recbank,calbank,ccbank,trajbank particle, calorimeter, cherenkov and trajectory banks
+     * @param index event index shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static ElectronCandidate getElectronCandidate(int ipart, Bank recbank, Bank calbank, Bank ccbank, Bank trajbank, EventIndex index, boolean isinbending) {
         ElectronCandidate candidate = new ElectronCandidate(ipart);
         if(!isinbending) candidate.setOUTBENDING();
 
         if(recbank!=null) {
-            candidate.setPID(recbank.getInt("pid",ipart));
-            candidate.setVZ(recbank.getFloat("vz",ipart));
-            candidate.setPxyz(recbank.getFloat("px",ipart), recbank.getFloat("py",ipart), recbank.getFloat("pz",ipart));
+            Columns.Particle col = Columns.Particle.of(recbank);
+            candidate.setPID(recbank.getInt(col.pid,ipart));
+            candidate.setVZ(recbank.getFloat(col.vz,ipart));
+            candidate.setPxyz(recbank.getFloat(col.px,ipart), recbank.getFloat(col.py,ipart), recbank.getFloat(col.pz,ipart));
+        }
+        if(ccbank!=null) {
+            int icc = index.getCherenkovRow(ipart, DetectorType.HTCC.getDetectorId());
+            if(icc>=0) candidate.setNPHE(ccbank.getFloat(Columns.Cherenkov.of(ccbank).nphe, icc));
+        }
+
+        if(calbank!=null) {
+            Columns.Calorimeter col = Columns.Calorimeter.of(calbank);
+            int ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 1);
+            if(ical>=0) {
+                candidate.setPCALsector(calbank.getByte(col.sector,ical));
+                candidate.setPCALenergy(calbank.getFloat(col.energy,ical));
+                candidate.setPCALvw(calbank.getFloat(col.lv,ical), calbank.getFloat(col.lw,ical));
+            }
+            ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 4);
+            if(ical>=0) candidate.setECINenergy(calbank.getFloat(col.energy,ical));
+            ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 7);
+            if(ical>=0) candidate.setECOUTenergy(calbank.getFloat(col.energy,ical));
         }
-        if(ccbank!=null) IntStream.range(0,ccbank.getRows()).filter(i -> ccbank.getShort("pindex",i) == ipart && ccbank.getByte("detector",i) == DetectorType.HTCC.getDetectorId())
-            .findFirst().ifPresent(i -> candidate.setNPHE(ccbank.getFloat("nphe", i)));
-
-        if(calbank!=null) IntStream.range(0,calbank.getRows())
-            .filter(i -> calbank.getShort("pindex",i) == ipart && calbank.getByte("detector",i) == DetectorType.ECAL.getDetectorId())
-            .forEach(i -> {
-            if(calbank.getByte("layer",i) == 1) {
-                candidate.setPCALsector(calbank.getByte("sector",i));
-                candidate.setPCALenergy(calbank.getFloat("energy",i));
-                candidate.setPCALvw(calbank.getFloat("lv",i), calbank.getFloat("lw",i));
-            } else if(calbank.getByte("layer",i) == 4)
-                candidate.setECINenergy(calbank.getFloat("energy",i));
-            else if(calbank.getByte("layer",i) == 7)
-                candidate.setECOUTenergy(calbank.getFloat("energy",i));
-        });
-
-        if(trajbank!=null) IntStream.range(0,trajbank.getRows())
-            .filter(i -> trajbank.getShort("pindex",i) == ipart && trajbank.getByte("detector",i) == DetectorType.DC.getDetectorId())
-            .forEach(i -> {
-            if(trajbank.getByte("layer",i) == 6)
-                candidate.setDCxyz(1, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 18)
-                candidate.setDCxyz(2, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 36)
-                candidate.setDCxyz(3, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-        });
+
+        if(trajbank!=null) candidate.setDCxyz(trajbank, index);
 
         return candidate;
     }
@@ -91,20 +116,44 @@ public class ElectronCandidate extends Candidate {
      */
     public LorentzVector getLorentzVector() {
         LorentzVector vec = null;
-        if(px!=null && py!=null && pz!=null) {
+        if(has(HAS_PXYZ)) {
             vec = new LorentzVector();
-            vec.setPxPyPzM(px,py,pz,0.000511);
+            vec.setPxPyPzM(px,py,pz,MASS);
         }
         return vec;
     }
 
 
 
+    /**
+     * write four-momentum into a reusable holder without allocation
+     * @param vec holder to fill
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(FourVector vec) {
+        return getFourVector(vec, MASS);
+    }
+
+
+
+    /**
+     * write four-momentum as (px, py, pz, e) into an array
+     * @param vec array to write to
+     * @param offset index of px in the array
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(double[] vec, int offset) {
+        return getFourVector(vec, offset, MASS);
+    }
+
+
+
+
     /**
      * @return cut on PID
      */
     public boolean cut_PID() {
-        if(pid==null) return false;
+        if(!has(HAS_PID)) return false;
         return pid == 11;
     }
 
@@ -114,7 +163,7 @@ public class ElectronCandidate extends Candidate {
      * @return cut on number of photoelectrons
      */
     public boolean cut_NPHE() {
-        if(nphe==null) return false;
+        if(!has(HAS_NPHE)) return false;
         return ElectronCuts.CC_nphe_cut(nphe);
     }
 
@@ -124,7 +173,7 @@ public class ElectronCandidate extends Candidate {
      * @return cut on PCAL energy
      */
     public boolean cut_EC_OUTER_VS_INNER() {
-        if(pcal_energy==null) return false;
+        if(!has(HAS_PCAL_ENERGY)) return false;
         return ElectronCuts.EC_outer_vs_EC_inner_cut(pcal_energy);
     }
 
@@ -134,7 +183,7 @@ public class ElectronCandidate extends Candidate {
      * @return cut on EC sampling
      */
     public boolean cut_EC_SAMPLING() {
-        if(p==null || pcal_sector==null || pcal_energy==null || ecin_energy==null || ecout_energy==null) return false;
+        if(!has(HAS_P | HAS_PCAL_SECTOR | HAS_PCAL_ENERGY | HAS_ECIN_ENERGY | HAS_ECOUT_ENERGY)) return false;
         return ElectronCuts.EC_sampling_fraction_cut(p, pcal_sector, pcal_energy, ecin_energy, ecout_energy);
     }
 
@@ -153,18 +202,30 @@ public class ElectronCandidate extends Candidate {
      * @return fiducial cut on EC
      */
     public boolean cut_EC_FIDUCIAL(Level eclevel) {
-        if(pcal_sector==null || pcal_lv==null || pcal_lw==null) return false;
+        if(!has(HAS_PCAL_SECTOR | HAS_PCAL_LV | HAS_PCAL_LW)) return false;
         return ElectronCuts.EC_hit_position_fiducial_cut_homogeneous(pcal_sector, pcal_lv, pcal_lw, eclevel);
     }
 
 
 
+    /**
+     * tightest EC fiducial level in one evaluation for stratifying candidates by level,
+     * cut_EC_FIDUCIAL(level) is true for this level and all looser ones
+     * @return tightest passed level, null if even LOOSEST fails or PCAL hit is not set
+     */
+    public Level getECfiducialLevel() {
+        if(!has(HAS_PCAL_SECTOR | HAS_PCAL_LV | HAS_PCAL_LW)) return null;
+        return ElectronCuts.EC_hit_position_fiducial_level(pcal_sector, pcal_lv, pcal_lw);
+    }
+
+
+
     /**
      * @return fiducial cut on DC region 1
      */
     public boolean cut_DC_FIDUCIAL_REG1() {
-        if(dc_sector==null || traj_x1==null || traj_y1==null || pid==null) return false;
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 1, traj_x1, traj_y1, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ_X1 | HAS_TRAJ_Y1 | HAS_PID)) return false;
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 1, getGeometry().getX(1), getGeometry().getY(1), pid, field==MagField.INBENDING);
     }
 
 
@@ -173,8 +234,8 @@ public class ElectronCandidate extends Candidate {
      * @return fiducial cut on DC region 2
      */
     public boolean cut_DC_FIDUCIAL_REG2() {
-        if(dc_sector==null || traj_x2==null || traj_y2==null || pid==null) return false;
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 2, traj_x2, traj_y2, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ_X2 | HAS_TRAJ_Y2 | HAS_PID)) return false;
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 2, getGeometry().getX(2), getGeometry().getY(2), pid, field==MagField.INBENDING);
     }
 
 
@@ -183,8 +244,8 @@ public class ElectronCandidate extends Candidate {
      * @return fiducial cut on DC region 3
      */
     public boolean cut_DC_FIDUCIAL_REG3() {
-        if(dc_sector==null || traj_x3==null || traj_y3==null || pid==null) return false;
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 3, traj_x3, traj_y3, pid, field==MagField.INBENDING);
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ_X3 | HAS_TRAJ_Y3 | HAS_PID)) return false;
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 3, getGeometry().getX(3), getGeometry().getY(3), pid, field==MagField.INBENDING);
     }
 
 
@@ -193,62 +254,62 @@ public class ElectronCandidate extends Candidate {
      * @return
      */
     public boolean cut_DC_VERTEX() {
-        if(pcal_sector==null || vz==null) return false;
+        if(!has(HAS_PCAL_SECTOR | HAS_VZ)) return false;
         return ElectronCuts.DC_z_vertex_cut(pcal_sector, vz, field==MagField.INBENDING);
     }
 
 
 
     /**
-     * testing against all electron cuts
+     * @return test of one electron cut
      */
-    public int failedpid() {
-        return failedpid(Cut.values());
+    private static Predicate<ElectronCandidate> test(Cut cut) {
+        switch(cut) {
+        case PID: return ElectronCandidate::cut_PID;
+        case CC_NPHE: return ElectronCandidate::cut_NPHE;
+        case EC_OUTER_VS_INNER: return ElectronCandidate::cut_EC_OUTER_VS_INNER;
+        case EC_SAMPLING: return ElectronCandidate::cut_EC_SAMPLING;
+        case EC_FIDUCIAL: return ElectronCandidate::cut_EC_FIDUCIAL;
+        case DC_FIDUCIAL_REG1: return ElectronCandidate::cut_DC_FIDUCIAL_REG1;
+        case DC_FIDUCIAL_REG2: return ElectronCandidate::cut_DC_FIDUCIAL_REG2;
+        case DC_FIDUCIAL_REG3: return ElectronCandidate::cut_DC_FIDUCIAL_REG3;
+        case DC_VERTEX: return ElectronCandidate::cut_DC_VERTEX;
+        default: return candidate -> false;
+        }
     }
 
 
 
-    /**
-     * assembly of multiple electron cuts
-     * @param applycuts the list of cuts required to apply
-     */
-    public int failedpid(Cut ...applycuts) {
-        int ifail = 0;
-        for(Cut thiscut: applycuts) {
-            if(thiscut == Cut.PID) {
-                if(!cut_PID()) return ifail;
-
-            } else if(thiscut == Cut.CC_NPHE) {
-                if(!cut_NPHE()) return ifail;
+    private static final CutPlan<Cut, ElectronCandidate> ALL_CUTS = CutPlan.compile(Cut.class, EnumSet.allOf(Cut.class), ElectronCandidate::test); ///< all electron cuts in enum order
 
-            } else if(thiscut == Cut.EC_OUTER_VS_INNER) {
-                if(!cut_EC_OUTER_VS_INNER()) return ifail;
 
-            } else if(thiscut == Cut.EC_SAMPLING) {
-                if(!cut_EC_SAMPLING()) return ifail;
 
-            } else if(thiscut == Cut.EC_FIDUCIAL) {
-                if(!cut_EC_FIDUCIAL()) return ifail;
+    /**
+     * compile electron cuts into a plan which can be applied to many candidates
+     * @param cuts the list of cuts in the order they are applied
+     */
+    public static CutPlan<Cut, ElectronCandidate> plan(Cut ...cuts) {
+        return CutPlan.compile(Cut.class, ElectronCandidate::test, cuts);
+    }
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG1) {
-                if(!cut_DC_FIDUCIAL_REG1()) return ifail;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG2) {
-                if(!cut_DC_FIDUCIAL_REG2()) return ifail;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG3) {
-                if(!cut_DC_FIDUCIAL_REG3()) return ifail;
+    /**
+     * compile electron cuts into a plan which can be applied to many candidates
+     * @param cuts the set of cuts, applied in enum order
+     */
+    public static CutPlan<Cut, ElectronCandidate> plan(EnumSet<Cut> cuts) {
+        return CutPlan.compile(Cut.class, cuts, ElectronCandidate::test);
+    }
 
-            } else if(thiscut == Cut.DC_VERTEX) {
-                if(!cut_DC_VERTEX()) return ifail;
 
-            } else {
-                return ifail;
-            }
 
-            ifail++;
-        }
-        return -1;
+    /**
+     * evaluate all electron cuts at once, without stopping at failed cuts
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask
+     */
+    public int evaluateAll() {
+        return ALL_CUTS.evaluateAll(this);
     }
 
 
@@ -256,8 +317,8 @@ public class ElectronCandidate extends Candidate {
     /**
      * testing against all electron cuts
      */
-    public boolean iselectron() {
-        return iselectron(Cut.values());
+    public int failedpid() {
+        return ALL_CUTS.failed(this);
     }
 
 
@@ -266,40 +327,57 @@ public class ElectronCandidate extends Candidate {
      * assembly of multiple electron cuts
      * @param applycuts the list of cuts required to apply
      */
-    public boolean iselectron(Cut ...applycuts) {
-        for(Cut thiscut: applycuts) {
-            if(thiscut == Cut.PID) {
-                if(!cut_PID()) return false;
+    public int failedpid(Cut ...applycuts) {
+        return ALL_CUTS.failed(this, applycuts);
+    }
 
-            } else if(thiscut == Cut.CC_NPHE) {
-                if(!cut_NPHE()) return false;
 
-            } else if(thiscut == Cut.EC_OUTER_VS_INNER) {
-                if(!cut_EC_OUTER_VS_INNER()) return false;
 
-            } else if(thiscut == Cut.EC_SAMPLING) {
-                if(!cut_EC_SAMPLING()) return false;
+    /**
+     * testing against all electron cuts
+     */
+    public boolean iselectron() {
+        return ALL_CUTS.test(this);
+    }
+
 
-            } else if(thiscut == Cut.EC_FIDUCIAL) {
-                if(!cut_EC_FIDUCIAL()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG1) {
-                if(!cut_DC_FIDUCIAL_REG1()) return false;
+    /**
+     * assembly of multiple electron cuts
+     * @param applycuts the list of cuts required to apply
+     */
+    public boolean iselectron(Cut ...applycuts) {
+        return ALL_CUTS.test(this, applycuts);
+    }
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG2) {
-                if(!cut_DC_FIDUCIAL_REG2()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG3) {
-                if(!cut_DC_FIDUCIAL_REG3()) return false;
 
-            } else if(thiscut == Cut.DC_VERTEX) {
-                if(!cut_DC_VERTEX()) return false;
 
-            } else {
-                return false;
-            }
+    /**
+     * testing all candidates of a batch against all electron cuts
+     * @param batch candidates stored as columns
+     * @param pass array of at least batch.size() values, set to true for candidates passing all electron cuts
+     */
+    public static void iselectron(CandidateBatch batch, boolean[] pass) {
+        int n = batch.size();
+        boolean isinbending = batch.isInbending();
+
+        batch.present(HAS_PID | HAS_NPHE | HAS_P | HAS_PCAL_SECTOR | HAS_PCAL_ENERGY | HAS_ECIN_ENERGY | HAS_ECOUT_ENERGY
+            | HAS_PCAL_LV | HAS_PCAL_LW | HAS_DC_SECTOR | HAS_TRAJ_X1 | HAS_TRAJ_Y1 | HAS_TRAJ_X2 | HAS_TRAJ_Y2
+            | HAS_TRAJ_X3 | HAS_TRAJ_Y3 | HAS_VZ, pass);
+
+        int[] pid = batch.getPID();
+        for(int i=0; i<n; i++)
+            if(pid[i] != 11) pass[i] = false;
+
+        ElectronCuts.CC_nphe_cut(n, batch.getNPHE(), pass);
+        ElectronCuts.EC_outer_vs_EC_inner_cut(n, batch.getPCALenergy(), pass);
+        ElectronCuts.EC_sampling_fraction_cut(n, batch.getP(), batch.getPCALsector(), batch.getPCALenergy(), batch.getECINenergy(), batch.getECOUTenergy(), pass);
+        ElectronCuts.EC_hit_position_fiducial_cut_homogeneous(n, batch.getPCALsector(), batch.getPCALlv(), batch.getPCALlw(), Level.LOOSE, pass);
+        for(int region=1; region<=3; region++) {
+            VectorCuts.DC_fiducial_cut_XY(n, batch.getDCsector(), region, batch.getDCx(region), batch.getDCy(region), pid, isinbending, pass);
         }
-        return true;
+        ElectronCuts.DC_z_vertex_cut(n, batch.getPCALsector(), batch.getVZ(), isinbending, pass);
     }
 
 }
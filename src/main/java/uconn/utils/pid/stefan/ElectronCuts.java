@@ -1,145 +1,49 @@
 package uconn.utils.pid.stefan;
 
 import uconn.utils.pid.Candidate.Level;
+import uconn.utils.pid.SectorGeometry;
 
 public class ElectronCuts {
 
-    /**
-     * Cherenkov nphe cut
-     * @param nphe number of photoelectrons
-     */
-    public static boolean CC_nphe_cut(double nphe) {
-        double nphe_min = 2;
-        return nphe > nphe_min;
-    }
-
-    /**
-     * PCAL energy
-     * @param pcal_energy energy deposited in PCAL
-     */
-    public static boolean EC_outer_vs_EC_inner_cut(double pcal_energy) {
-        final double edep_tight = 0.06, edep_medium = 0.07, edep_loose = 0.09;
-        return pcal_energy > edep_medium;
-    }
-
-
-    /**
-     * @param partp particle momentum
-     * @param pcal_sector sector of hits in PCAL
-     * @param pcal_energy energy in PCAL
-     * @param ecin_energy energy in ECIN
-     * @param ecout_energy energy in ECOUT
-     */
-    public static boolean EC_sampling_fraction_cut(double partp, int pcal_sector, double pcal_energy, double ecin_energy, double ecout_energy) {
-
-        double[][] ecal_e_sampl_mu = {{  0.2531,  0.2550,  0.2514,  0.2494,  0.2528,  0.2521 },
-            { -0.6502, -0.7472, -0.7674, -0.4913, -0.3988, -0.703  },
-            {  4.939,  5.350,  5.102,  6.440,  6.149,  4.957  }
-        };
-
-        double[][] ecal_e_sampl_sigm = {{  2.726e-3,  4.157e-3,  5.222e-3,  5.398e-3,  8.453e-3,  6.533e-3 },
-            {  1.062,  0.859,  0.5564,  0.6576,  0.3242,  0.4423   },
-            { -4.089, -3.318, -2.078, -2.565, -0.8223, -1.274    }
-        };
-
-        double sigma_range = 3.5;
-
-        double ectotal_energy = pcal_energy + ecin_energy + ecout_energy;
-        int isec = pcal_sector-1;
-        double mean = ecal_e_sampl_mu[0][isec] + ecal_e_sampl_mu[1][isec]/1000*Math.pow(partp-ecal_e_sampl_mu[2][isec],2);
-        double sigma = ecal_e_sampl_sigm[0][isec] + ecal_e_sampl_sigm[1][isec]/(10*(partp-ecal_e_sampl_sigm[2][isec]));
-        double upper_lim_total = mean + sigma_range * sigma;
-        double lower_lim_total = mean - sigma_range * sigma;
-
-        boolean pass_band = ectotal_energy/partp <= upper_lim_total && ectotal_energy/partp >= lower_lim_total;
-        boolean pass_triangle = false;
-
-        if(partp < 4.5) {
-            pass_triangle = true;
-        }
-        else {
-            pass_triangle = ecin_energy/partp > (0.2 -  pcal_energy/partp);
-        }
-
-        return pass_band && pass_triangle;
-    }
-
-
-
-
-    /**
-     * @param pcal_sector sector of hits in PCAL
-     * @param lv pcal_lv
-     * @param lw pcal_lw
-     * @param lvl fiducial cut level
-     */
-    public static boolean EC_hit_position_fiducial_cut_homogeneous(int pcal_sector, double lv, double lw, Level lvl) {
-
-        // Cut using the natural directions of the scintillator bars/ fibers:
-
-        ///////////////////////////////////////////////////////////////////
-        /// inbending:
-        //
-        double[] min_v_tight_inb = {19.0, 19.0, 19.0, 19.0, 19.0, 19.0};
-        double[] min_v_med_inb   = {14.0, 14.0, 14.0, 14.0, 14.0, 14.0};
-        double[] min_v_loose_inb = {9.0,  9.0,  9.0,  9.0,  9.0,  9.0 };
-        double[] min_v_loosest_inb = {5.0,  5.0,  5.0,  5.0,  5.0,  5.0 };
-        //
-        double[] max_v_tight_inb = {400, 400, 400, 400, 400, 400};
-        double[] max_v_med_inb   = {400, 400, 400, 400, 400, 400};
-        double[] max_v_loose_inb = {400, 400, 400, 400, 400, 400};
-        double[] max_v_loosest_inb = {400, 400, 400, 400, 400, 400};
-        //
-        double[] min_w_tight_inb = {19.0, 19.0, 19.0, 19.0, 19.0, 19.0};
-        double[] min_w_med_inb   = {14.0, 14.0, 14.0, 14.0, 14.0, 14.0};
-        double[] min_w_loose_inb = {9.0,  9.0,  9.0,  9.0,  9.0,  9.0 };
-        double[] min_w_loosest_inb = {5.0,  5.0,  5.0,  5.0,  5.0,  5.0 };
-        //
-        double[] max_w_tight_inb = {400, 400, 400, 400, 400, 400};
-        double[] max_w_med_inb   = {400, 400, 400, 400, 400, 400};
-        double[] max_w_loose_inb = {400, 400, 400, 400, 400, 400};
-        double[] max_w_loosest_inb = {400, 400, 400, 400, 400, 400};
-
-
-        //////////////////////////////////////////////////////////////
-
-        int isec = pcal_sector - 1;
-        double min_v = min_v_loose_inb[isec];
-        double max_v = max_v_loose_inb[isec];
-        double min_w = min_w_loose_inb[isec];
-        double max_w = max_w_loose_inb[isec];
-
-        if(lvl == Level.MEDIUM) {
-            min_v = min_v_med_inb[isec];
-            max_v = max_v_med_inb[isec];
-            min_w = min_w_med_inb[isec];
-            max_w = max_w_med_inb[isec];
-        } else if(lvl == Level.TIGHT) {
-            min_v = min_v_tight_inb[isec];
-            max_v = max_v_tight_inb[isec];
-            min_w = min_w_tight_inb[isec];
-            max_w = max_w_tight_inb[isec];
-        } else if(lvl == Level.LOOSEST) {
-            min_v = min_v_loosest_inb[isec];
-            max_v = max_v_loosest_inb[isec];
-            min_w = min_w_loosest_inb[isec];
-            max_w = max_w_loosest_inb[isec];
-        }
-
-        return lv > min_v && lv < max_v && lw > min_w && lw < max_w;
-    }
-
-
-    /**
-     * @param dc_sector sector of hits in DC
-     * @param region specify fiducial cuts for which region to use
-     * @param x x for region 1 or 2 or 3 from REC::Traj
-     * @param y y for region 1 or 2 or 3 from REC::Traj
-     * @param partpid pid assigned to particle candidate
-     * @param isinbending True if magnetic field is inbending
-     */
-    public static boolean DC_fiducial_cut_XY(int dc_sector, int region, double x, double y, int partpid, boolean isinbending) {
-
+    /// EC sampling fraction mean parameters, flattened as [parameter][sector]
+    private static final double[] EC_SAMPL_MU = {
+          0.2531,  0.2550,  0.2514,  0.2494,  0.2528,  0.2521,
+         -0.6502, -0.7472, -0.7674, -0.4913, -0.3988, -0.703,
+          4.939,  5.350,  5.102,  6.440,  6.149,  4.957
+    };
+
+    /// EC sampling fraction sigma parameters, flattened as [parameter][sector]
+    private static final double[] EC_SAMPL_SIGM = {
+          2.726e-3,  4.157e-3,  5.222e-3,  5.398e-3,  8.453e-3,  6.533e-3,
+          1.062,  0.859,  0.5564,  0.6576,  0.3242,  0.4423,
+         -4.089, -3.318, -2.078, -2.565, -0.8223, -1.274
+    };
+
+    private static final Level[] LEVELS = Level.values(); ///< EC fiducial levels from LOOSEST to TIGHT
+
+    /// PCAL fiducial limits, flattened as [level][sector][min_v, max_v, min_w, max_w] with levels in Level order (inbending)
+    static final double[] EC_FIDUCIAL_LIMITS = {
+        // LOOSEST
+        5.0, 400, 5.0, 400,   5.0, 400, 5.0, 400,   5.0, 400, 5.0, 400,   5.0, 400, 5.0, 400,   5.0, 400, 5.0, 400,   5.0, 400, 5.0, 400,
+        // LOOSE
+        9.0, 400, 9.0, 400,   9.0, 400, 9.0, 400,   9.0, 400, 9.0, 400,   9.0, 400, 9.0, 400,   9.0, 400, 9.0, 400,   9.0, 400, 9.0, 400,
+        // MEDIUM
+        14.0, 400, 14.0, 400,   14.0, 400, 14.0, 400,   14.0, 400, 14.0, 400,   14.0, 400, 14.0, 400,   14.0, 400, 14.0, 400,   14.0, 400, 14.0, 400,
+        // TIGHT
+        19.0, 400, 19.0, 400,   19.0, 400, 19.0, 400,   19.0, 400, 19.0, 400,   19.0, 400, 19.0, 400,   19.0, 400, 19.0, 400,   19.0, 400, 19.0, 400
+    };
+
+    /// DC z vertex limits, flattened as [field][sector][min, max] with inbending first
+    static final double[] DC_VZ_LIMITS = {
+        -13, 12,   -13, 12,   -13, 12,   -13, 12,   -13, 12,   -13, 12,
+        -20, 12,   -20, 12,   -20, 12,   -20, 12,   -20, 12,   -20, 12
+    };
+
+    /// DC XY fiducial parameters, flattened as [field][pid][sector][region][2] with inbending first
+    static final double[] DC_XY_MINPARAMS;
+    static final double[] DC_XY_MAXPARAMS;
+
+    static {
 // new cut parameters for the linear cut based on x and y coordinates (inbending field):
 // replace it in the function: bool DC_fiducial_cut_XY(int j, int region)
 // (optimized for electrons, do not use it for hadrons)
@@ -295,46 +199,219 @@ public class ElectronCuts {
         };
 
 
-        double[][][][] minparams = isinbending ? minparams_in : minparams_out;
-        double[][][][] maxparams = isinbending ? maxparams_in : maxparams_out;
+        DC_XY_MINPARAMS = flatten(minparams_in, minparams_out);
+        DC_XY_MAXPARAMS = flatten(maxparams_in, maxparams_out);
+    }
+
+
+
+    /**
+     * flatten inbending and outbending [pid][sector][region][parameter] tables into one array
+     * @param inbending,outbending parameter tables
+     */
+    static double[] flatten(double[][][][] inbending, double[][][][] outbending) {
+        int npar = inbending[0][0][0].length;
+        double[] flat = new double[2*6*6*3*npar];
+        int ipar = 0;
+        for(double[][][][] params: new double[][][][][] {inbending, outbending})
+            for(int pid=0; pid<6; pid++)
+                for(int isec=0; isec<6; isec++)
+                    for(int ireg=0; ireg<3; ireg++)
+                        for(int k=0; k<npar; k++)
+                            flat[ipar++] = params[pid][isec][ireg][k];
+        return flat;
+    }
+
+
 
-        double X = x;
-        double Y = y;
+    /**
+     * @return slot of [field][pid][sector][region] in a flattened DC parameter table, to be multiplied by the number of parameters
+     */
+    static int dc_table_slot(boolean isinbending, int pid, int dc_sector, int region) {
+        return (((isinbending ? 0 : 1)*6 + pid)*6 + dc_sector-1)*3 + region-1;
+    }
+
+
+
+    /**
+     * @return index of the first parameter in the flattened DC XY tables
+     */
+    static int dc_xy_index(boolean isinbending, int pid, int dc_sector, int region) {
+        return 2*dc_table_slot(isinbending, pid, dc_sector, region);
+    }
 
-        double X_new = X * Math.cos(Math.toRadians(-60*(dc_sector-1))) - Y * Math.sin(Math.toRadians(-60*(dc_sector-1)));
-        Y = X * Math.sin(Math.toRadians(-60*(dc_sector-1))) + Y * Math.cos(Math.toRadians(-60*(dc_sector-1)));
-        X = X_new;
 
-        int pid = 0;
 
+    /**
+     * @param partpid pid assigned to particle candidate
+     * @return row of DC fiducial parameter tables, -1 for particles without DC fiducial parameters
+     */
+    static int dc_pid_index(int partpid) {
         switch (partpid)
         {
         case 11:
-            pid = 0;
-            break;
+            return 0;
         case 2212:
-            pid = 1;
-            break;
+            return 1;
         case 211:
-            pid = 2;
-            break;
+            return 2;
         case -211:
-            pid = 3;
-            break;
+            return 3;
         case 321:
-            pid = 4;
-            break;
+            return 4;
         case -321:
-            pid = 5;
-            break;
+            return 5;
         default:
-            return false;
+            return -1;
         }
+    }
+
+
+
+    /**
+     * Cherenkov nphe cut
+     * @param nphe number of photoelectrons
+     */
+    public static boolean CC_nphe_cut(double nphe) {
+        double nphe_min = 2;
+        return nphe > nphe_min;
+    }
+
+    /**
+     * PCAL energy
+     * @param pcal_energy energy deposited in PCAL
+     */
+    public static boolean EC_outer_vs_EC_inner_cut(double pcal_energy) {
+        final double edep_tight = 0.06, edep_medium = 0.07, edep_loose = 0.09;
+        return pcal_energy > edep_medium;
+    }
+
+
+    /**
+     * @param partp particle momentum
+     * @param pcal_sector sector of hits in PCAL
+     * @param pcal_energy energy in PCAL
+     * @param ecin_energy energy in ECIN
+     * @param ecout_energy energy in ECOUT
+     */
+    public static boolean EC_sampling_fraction_cut(double partp, int pcal_sector, double pcal_energy, double ecin_energy, double ecout_energy) {
+        if(pcal_sector<1 || pcal_sector>6) return false;
+
+        double sigma_range = 3.5;
+
+        double ectotal_energy = pcal_energy + ecin_energy + ecout_energy;
+        int isec = pcal_sector-1;
+        double mean = EC_SAMPL_MU[isec] + EC_SAMPL_MU[6+isec]/1000*Math.pow(partp-EC_SAMPL_MU[12+isec],2);
+        double sigma = EC_SAMPL_SIGM[isec] + EC_SAMPL_SIGM[6+isec]/(10*(partp-EC_SAMPL_SIGM[12+isec]));
+        double upper_lim_total = mean + sigma_range * sigma;
+        double lower_lim_total = mean - sigma_range * sigma;
+
+        boolean pass_band = ectotal_energy/partp <= upper_lim_total && ectotal_energy/partp >= lower_lim_total;
+        boolean pass_triangle = false;
+
+        if(partp < 4.5) {
+            pass_triangle = true;
+        }
+        else {
+            pass_triangle = ecin_energy/partp > (0.2 -  pcal_energy/partp);
+        }
+
+        return pass_band && pass_triangle;
+    }
+
+
+
+
+    /**
+     * @param pcal_sector sector of hits in PCAL
+     * @param lv pcal_lv
+     * @param lw pcal_lw
+     * @param lvl fiducial cut level
+     */
+    public static boolean EC_hit_position_fiducial_cut_homogeneous(int pcal_sector, double lv, double lw, Level lvl) {
+        if(pcal_sector<1 || pcal_sector>6) return false;
+
+        // Cut using the natural directions of the scintillator bars/ fibers (inbending limits)
+        // any level other than LOOSEST, MEDIUM and TIGHT falls back to LOOSE
+        int ilvl = lvl==null ? Level.LOOSE.ordinal() : lvl.ordinal();
+        int ilim = (ilvl*6 + pcal_sector-1)*4;
+        double min_v = EC_FIDUCIAL_LIMITS[ilim];
+        double max_v = EC_FIDUCIAL_LIMITS[ilim+1];
+        double min_w = EC_FIDUCIAL_LIMITS[ilim+2];
+        double max_w = EC_FIDUCIAL_LIMITS[ilim+3];
+
+        return lv > min_v && lv < max_v && lw > min_w && lw < max_w;
+    }
+
+
+
+    /**
+     * tightest EC fiducial level of a PCAL hit in one evaluation, limits of each sector are nested
+     * (minimum limits grow and maximum limits do not shrink from LOOSEST to TIGHT, see ElectronCutsTest),
+     * so the hit passes EC_hit_position_fiducial_cut_homogeneous exactly for this level and all looser ones
+     * @param pcal_sector sector of hits in PCAL
+     * @param lv pcal_lv
+     * @param lw pcal_lw
+     * @return tightest passed level, null if the hit does not pass even LOOSEST
+     */
+    public static Level EC_hit_position_fiducial_level(int pcal_sector, double lv, double lw) {
+        if(pcal_sector<1 || pcal_sector>6) return null;
+
+        for(int ilvl=LEVELS.length-1; ilvl>=0; ilvl--) {
+            int ilim = (ilvl*6 + pcal_sector-1)*4;
+            if(lv > EC_FIDUCIAL_LIMITS[ilim] && lv < EC_FIDUCIAL_LIMITS[ilim+1] && lw > EC_FIDUCIAL_LIMITS[ilim+2] && lw < EC_FIDUCIAL_LIMITS[ilim+3])
+                return LEVELS[ilvl];
+        }
+        return null;
+    }
+
+
+
+    /**
+     * @param tightest tightest passed level from EC_hit_position_fiducial_level
+     * @param lvl required level, null is LOOSE as in EC_hit_position_fiducial_cut_homogeneous
+     * @return true if the required level is passed
+     */
+    public static boolean EC_fiducial_level_passes(Level tightest, Level lvl) {
+        int ilvl = lvl==null ? Level.LOOSE.ordinal() : lvl.ordinal();
+        return tightest!=null && tightest.ordinal() >= ilvl;
+    }
+
+
+    /**
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param x x for region 1 or 2 or 3 from REC::Traj
+     * @param y y for region 1 or 2 or 3 from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     */
+    public static boolean DC_fiducial_cut_XY(int dc_sector, int region, double x, double y, int partpid, boolean isinbending) {
+        int pid = dc_pid_index(partpid);
+        if(pid<0 || dc_sector<1 || dc_sector>6 || region<1 || region>3) return false;
+
+        return DC_fiducial_cut_XY_rotated(dc_sector, region, SectorGeometry.rotateX(dc_sector, x, y), SectorGeometry.rotateY(dc_sector, x, y), partpid, isinbending);
+    }
+
+
+    /**
+     * DC XY fiducial cut on position already rotated to sector 1 frame, see TrackGeometry
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param X x rotated to sector 1 frame
+     * @param Y y rotated to sector 1 frame
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     */
+    public static boolean DC_fiducial_cut_XY_rotated(int dc_sector, int region, double X, double Y, int partpid, boolean isinbending) {
+        int pid = dc_pid_index(partpid);
+        if(pid<0 || dc_sector<1 || dc_sector>6 || region<1 || region>3) return false;
 
         //if(inbending == true) pid = 0; // use only for electrons in inbending case
 
-        double calc_min = minparams[pid][dc_sector - 1][region-1][0] + minparams[pid][dc_sector - 1][region-1][1] * X;
-        double calc_max = maxparams[pid][dc_sector - 1][region-1][0] + maxparams[pid][dc_sector - 1][region-1][1] * X;
+        int ipar = dc_xy_index(isinbending, pid, dc_sector, region);
+        double calc_min = DC_XY_MINPARAMS[ipar] + DC_XY_MINPARAMS[ipar+1] * X;
+        double calc_max = DC_XY_MAXPARAMS[ipar] + DC_XY_MAXPARAMS[ipar+1] * X;
 
         return (Y > calc_min) && (Y < calc_max);
     }
@@ -346,32 +423,101 @@ public class ElectronCuts {
      * @param isinbending true for inbending, false for outbending
      */
     public static boolean DC_z_vertex_cut(int pcal_sector, double partvz, boolean isinbending) {
+        if(pcal_sector<1 || pcal_sector>6) return false;
 
-        double vz_min_sect_inb[] = {-13, -13, -13, -13, -13, -13};
-        double vz_max_sect_inb[] = { 12,  12,  12,  12,  12,  12};
+        int ilim = ((isinbending ? 0 : 1)*6 + pcal_sector-1)*2;
+        double vz_min = DC_VZ_LIMITS[ilim];
+        double vz_max = DC_VZ_LIMITS[ilim+1];
 
-        double vz_min_sect_outb[] = {-20, -20, -20, -20, -20, -20};
-        double vz_max_sect_outb[] = { 12,  12,  12,  12,  12,  12};
+        return partvz > vz_min && partvz < vz_max;
+    }
 
-        double[] vz_min_sect = new double[6];
-        double[] vz_max_sect = new double[6];
 
-        for(int i = 0; i < 6; i++) {
-            if(isinbending) {
-                vz_min_sect[i] = vz_min_sect_inb[i];
-                vz_max_sect[i] = vz_max_sect_inb[i];
-            } else {
-                vz_min_sect[i] = vz_min_sect_outb[i];
-                vz_max_sect[i] = vz_max_sect_outb[i];
-            }
-        }
+    /*
+     * Batch versions of the cuts above.
+     * They loop over the first n entries of primitive arrays (see CandidateBatch)
+     * and clear pass[i] of particles failing the cut, entries from n on are not touched.
+     * Particles with pass[i] already false are not evaluated, so the cuts are chained
+     * by calling them one after another on the same pass array.
+     */
+
+    /**
+     * @param n number of particles
+     * @param nphe number of photoelectrons
+     * @param pass cleared for particles failing the cut
+     */
+    public static void CC_nphe_cut(int n, float[] nphe, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = CC_nphe_cut(nphe[i]);
+    }
 
-        int isec = pcal_sector - 1;
-        double vz_min = vz_min_sect[isec];
-        double vz_max = vz_max_sect[isec];
 
-        return partvz > vz_min && partvz < vz_max;
+    /**
+     * @param n number of particles
+     * @param pcal_energy energy deposited in PCAL
+     * @param pass cleared for particles failing the cut
+     */
+    public static void EC_outer_vs_EC_inner_cut(int n, float[] pcal_energy, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = EC_outer_vs_EC_inner_cut(pcal_energy[i]);
     }
 
-}
 
+    /**
+     * @param n number of particles
+     * @param partp particle momentum
+     * @param pcal_sector sector of hits in PCAL
+     * @param pcal_energy energy in PCAL
+     * @param ecin_energy energy in ECIN
+     * @param ecout_energy energy in ECOUT
+     * @param pass cleared for particles failing the cut
+     */
+    public static void EC_sampling_fraction_cut(int n, float[] partp, int[] pcal_sector, float[] pcal_energy, float[] ecin_energy, float[] ecout_energy, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = EC_sampling_fraction_cut(partp[i], pcal_sector[i], pcal_energy[i], ecin_energy[i], ecout_energy[i]);
+    }
+
+
+    /**
+     * @param n number of particles
+     * @param pcal_sector sector of hits in PCAL
+     * @param lv pcal_lv
+     * @param lw pcal_lw
+     * @param lvl fiducial cut level
+     * @param pass cleared for particles failing the cut
+     */
+    public static void EC_hit_position_fiducial_cut_homogeneous(int n, int[] pcal_sector, float[] lv, float[] lw, Level lvl, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = EC_hit_position_fiducial_cut_homogeneous(pcal_sector[i], lv[i], lw[i], lvl);
+    }
+
+
+    /**
+     * @param n number of particles
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param x x for the region from REC::Traj
+     * @param y y for the region from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     * @param pass cleared for particles failing the cut
+     */
+    public static void DC_fiducial_cut_XY(int n, int[] dc_sector, int region, float[] x, float[] y, int[] partpid, boolean isinbending, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = DC_fiducial_cut_XY(dc_sector[i], region, x[i], y[i], partpid[i], isinbending);
+    }
+
+
+    /**
+     * @param n number of particles
+     * @param pcal_sector sector of hits in PCAL
+     * @param partvz Z in vertex
+     * @param isinbending true for inbending, false for outbending
+     * @param pass cleared for particles failing the cut
+     */
+    public static void DC_z_vertex_cut(int n, int[] pcal_sector, float[] partvz, boolean isinbending, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = DC_z_vertex_cut(pcal_sector[i], partvz[i], isinbending);
+    }
+
+}
@@ -0,0 +1,69 @@
+package uconn.utils.pid.stefan;
+
+import java.util.ArrayList;
+import java.util.List;
+import uconn.utils.pid.EventContext;
+
+public class EventCandidates {
+    protected final List<ElectronCandidate> electrons = new ArrayList<>(); ///< electron candidates
+    protected final List<PionCandidate> pions = new ArrayList<>(); ///< pion candidates
+    protected final List<KaonCandidate> kaons = new ArrayList<>(); ///< kaon candidates
+    protected final List<ProtonCandidate> protons = new ArrayList<>(); ///< proton candidates
+    protected final List<PhotonCandidate> photons = new ArrayList<>(); ///< photon candidates
+    protected EventContext context = null; ///< trigger particle of the event
+
+
+
+    /**
+     * @return electron candidates, one per REC::Particle row if electrons were requested
+     */
+    public List<ElectronCandidate> getElectrons() {
+        return electrons;
+    }
+
+
+
+    /**
+     * @return pion candidates, one per REC::Particle row if pions were requested
+     */
+    public List<PionCandidate> getPions() {
+        return pions;
+    }
+
+
+
+    /**
+     * @return kaon candidates, one per REC::Particle row if kaons were requested
+     */
+    public List<KaonCandidate> getKaons() {
+        return kaons;
+    }
+
+
+
+    /**
+     * @return proton candidates, one per REC::Particle row if protons were requested
+     */
+    public List<ProtonCandidate> getProtons() {
+        return protons;
+    }
+
+
+
+    /**
+     * @return photon candidates, one per REC::Particle row if photons were requested
+     */
+    public List<PhotonCandidate> getPhotons() {
+        return photons;
+    }
+
+
+
+    /**
+     * @return trigger particle of the event, null if the event had no particles or was rejected by the pre-filter
+     */
+    public EventContext getContext() {
+        return context;
+    }
+
+}
@@ -0,0 +1,307 @@
+package uconn.utils.pid.stefan;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.io.HipoReader;
+import org.jlab.jnp.hipo4.io.HipoWriter;
+
+public class EventPipeline {
+    /*
+     * Streaming reader -> select -> write pipeline over one HIPO file.
+     * One thread reads events, a pool of selector threads builds candidates and applies cuts,
+     * one writer stage (the thread calling run()) passes selected events to a sink.
+     * Stages are connected by bounded queues: a slow sink fills the selected queue, selectors block,
+     * the event queue fills and the reader blocks, so at most both queue capacities of events are in memory.
+     * Events are not written in the file order, the selector gets the file index of every event.
+     */
+
+    /// receiver of selected events, called by the writer stage only
+    public interface Sink<R> {
+        /**
+         * @param ievent event index in the file
+         * @param event selected hipo event
+         * @param result result returned by the selector
+         */
+        void write(int ievent, Event event, R result);
+    }
+
+
+
+    private final HipoReader reader; ///< reader of the input file
+    private final boolean isinbending; ///< magnetic field of the run
+    private final CandidateFactory.Species[] species; ///< species to build
+    private int nthreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 2); ///< number of selector threads
+    private int capacity = 1000; ///< capacity of each queue
+
+    private final Stage read = new Stage("read"); ///< statistics of the reader stage
+    private final Stage select = new Stage("select"); ///< statistics of the selector stage
+    private final Stage write = new Stage("write"); ///< statistics of the writer stage
+    private final Depth readqueue = new Depth("read->select"); ///< depth of the event queue
+    private final Depth selectqueue = new Depth("select->write"); ///< depth of the selected event queue
+    private volatile long start = 0; ///< start of the last run in ns
+    private volatile long stop = 0; ///< end of the last run in ns, 0 while running
+
+
+
+    /** A Constructor
+     * @param reader opened reader of the input file
+     * @param isinbending true for inbending, false for outbending
+     * @param species the list of species to build, all species if empty
+     */
+    public EventPipeline(HipoReader reader, boolean isinbending, CandidateFactory.Species ...species) {
+        this.reader = reader;
+        this.isinbending = isinbending;
+        this.species = species.clone();
+    }
+
+
+
+    /**
+     * @param nthreads number of selector threads, number of processors minus two by default
+     */
+    public void setThreads(int nthreads) {
+        if(nthreads < 1)
+            throw new IllegalArgumentException("number of selector threads must be positive: " + nthreads);
+        this.nthreads = nthreads;
+    }
+
+
+
+    /**
+     * @param capacity maximum number of events in each queue, 1000 by default
+     */
+    public void setQueueCapacity(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("queue capacity must be positive: " + capacity);
+        this.capacity = capacity;
+    }
+
+
+
+    /**
+     * @param writer opened hipo writer
+     * @return sink adding every selected event to the writer
+     */
+    public static <R> Sink<R> writeTo(HipoWriter writer) {
+        return (ievent, event, result) -> writer.addEvent(event);
+    }
+
+
+
+    /**
+     * read the whole file through the pipeline, the calling thread is the writer stage
+     * @param selector selection run on selector threads, events with null result are dropped
+     * @param sink receiver of selected events
+     * @return number of read events
+     */
+    public <R> long run(ParallelEventProcessor.Selector<R> selector, Sink<? super R> sink) {
+        for(Stage stage: new Stage[] {read, select, write}) stage.reset();
+        readqueue.reset();
+        selectqueue.reset();
+
+        BlockingQueue<Item<R>> events = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Item<R>> selected = new ArrayBlockingQueue<>(capacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger nselectors = new AtomicInteger(nthreads);
+
+        Thread[] threads = new Thread[nthreads + 1];
+        threads[0] = new Thread(() -> {
+            try {
+                for(int ievent=0; reader.hasNext(); ievent++) {
+                    long t0 = System.nanoTime();
+                    Event event = new Event();
+                    reader.nextEvent(event);
+                    read.add(System.nanoTime() - t0);
+                    put(events, new Item<>(ievent, event, null), readqueue, failure);
+                }
+                for(int ithread=0; ithread<nthreads; ithread++)
+                    put(events, Item.end(), readqueue, failure);
+            } catch(Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }, "pipeline-read");
+
+        for(int ithread=1; ithread<=nthreads; ithread++) {
+            threads[ithread] = new Thread(() -> {
+                try {
+                    CandidateFactory factory = new CandidateFactory(reader.getSchemaFactory(), isinbending, species);
+                    for(Item<R> item = take(events, failure); item.event != null; item = take(events, failure)) {
+                        long t0 = System.nanoTime();
+                        R result = selector.select(item.ievent, item.event, factory.fromEvent(item.event));
+                        select.add(System.nanoTime() - t0);
+                        if(result != null) put(selected, new Item<>(item.ievent, item.event, result), selectqueue, failure);
+                    }
+                    if(nselectors.decrementAndGet() == 0) put(selected, Item.end(), selectqueue, failure);
+                } catch(Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "pipeline-select-" + ithread);
+        }
+
+        start = System.nanoTime();
+        stop = 0;
+        for(Thread thread: threads) thread.start();
+        try {
+            for(Item<R> item = take(selected, failure); item.event != null; item = take(selected, failure)) {
+                long t0 = System.nanoTime();
+                sink.write(item.ievent, item.event, item.result);
+                write.add(System.nanoTime() - t0);
+            }
+        } catch(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+
+        for(Thread thread: threads) {
+            try {
+                thread.join();
+            } catch(InterruptedException e) {
+                failure.compareAndSet(null, e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        stop = System.nanoTime();
+
+        Throwable error = failure.get();
+        if(error != null) throw new RuntimeException("event pipeline failed", error);
+        return read.count();
+    }
+
+
+
+    /**
+     * put into a queue, waiting while it is full unless another stage failed
+     */
+    private static <R> void put(BlockingQueue<Item<R>> queue, Item<R> item, Depth depth, AtomicReference<Throwable> failure) throws InterruptedException {
+        while(!queue.offer(item, 100, TimeUnit.MILLISECONDS))
+            if(failure.get() != null) throw new Stopped();
+        depth.sample(queue.size());
+    }
+
+
+
+    /**
+     * take from a queue, waiting while it is empty unless another stage failed
+     */
+    private static <R> Item<R> take(BlockingQueue<Item<R>> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+        Item<R> item;
+        while((item = queue.poll(100, TimeUnit.MILLISECONDS)) == null)
+            if(failure.get() != null) throw new Stopped();
+        return item;
+    }
+
+
+
+    /**
+     * @return number of events, throughput and busy fraction of each stage, mean and maximum depth of each queue,
+     * it can be called from another thread while the pipeline runs
+     */
+    public String report() {
+        long now = stop == 0 ? System.nanoTime() : stop;
+        double seconds = start == 0 ? 0 : (now - start)/1e9;
+        StringBuilder sb = new StringBuilder(String.format("pipeline %.1f s, %d selector threads%n", seconds, nthreads));
+        for(Stage stage: new Stage[] {read, select, write}) {
+            long count = stage.count();
+            double busy = stage.busy.sum()/1e9;
+            int nworkers = stage == select ? nthreads : 1;
+            sb.append(String.format("%-8s %10d events %10.1f events/s, busy %5.1f%%%n", stage.name, count,
+                    seconds > 0 ? count/seconds : 0, seconds > 0 ? 100*busy/seconds/nworkers : 0));
+        }
+        for(Depth depth: new Depth[] {readqueue, selectqueue})
+            sb.append(String.format("%-14s queue depth mean %7.1f, max %5d of %d%n", depth.name, depth.mean(), depth.max.get(), capacity));
+        return sb.toString();
+    }
+
+
+
+    /// event passed between stages, an item without event ends the stream
+    private static final class Item<R> {
+        private final int ievent; ///< event index in the file
+        private final Event event; ///< hipo event
+        private final R result; ///< selector result
+
+        private Item(int ievent, Event event, R result) {
+            this.ievent = ievent;
+            this.event = event;
+            this.result = result;
+        }
+
+        private static <R> Item<R> end() {
+            return new Item<>(-1, null, null);
+        }
+    }
+
+
+
+    /// counters of one stage
+    private static final class Stage {
+        private final String name; ///< stage name
+        private final LongAdder events = new LongAdder(); ///< processed events
+        private final LongAdder busy = new LongAdder(); ///< time spent processing in ns
+
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        private void add(long nanos) {
+            events.increment();
+            busy.add(nanos);
+        }
+
+        private long count() {
+            return events.sum();
+        }
+
+        private void reset() {
+            events.reset();
+            busy.reset();
+        }
+    }
+
+
+
+    /// queue depth sampled on every put
+    private static final class Depth {
+        private final String name; ///< queue name
+        private final LongAdder sum = new LongAdder(); ///< sum of sampled depths
+        private final LongAdder samples = new LongAdder(); ///< number of samples
+        private final AtomicInteger max = new AtomicInteger(); ///< maximum sampled depth
+
+        private Depth(String name) {
+            this.name = name;
+        }
+
+        private void sample(int depth) {
+            sum.add(depth);
+            samples.increment();
+            max.accumulateAndGet(depth, Math::max);
+        }
+
+        private double mean() {
+            long n = samples.sum();
+            return n == 0 ? 0 : sum.sum()/(double) n;
+        }
+
+        private void reset() {
+            sum.reset();
+            samples.reset();
+            max.set(0);
+        }
+    }
+
+
+
+    /// thrown in a stage when another stage failed
+    private static final class Stopped extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Stopped() {
+            super("stopped after failure of another pipeline stage", null, false, false);
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package uconn.utils.pid.stefan;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import uconn.utils.pid.Columns;
+
+public class EventPreFilter {
+    /*
+     * Event topology check on REC::Particle pid, status and charge columns only.
+     * It runs before any detector bank is read or any candidate is built,
+     * and rejects events which can not pass a selection requiring the configured particles,
+     * e.g. requireTrigger(11) for events with a trigger electron, requirePID(2212, 1) for at least one proton.
+     * PID requirements match cut_PID of the candidates, so they never reject an event the full selection would keep,
+     * forward-only counting matches cut_FORWARD and is safe only if every required species has a FORWARD cut, electrons do not.
+     * Counters are LongAdders, one filter can be shared by the factories of many threads through accept(Bank).
+     */
+
+    private final Bank recbank; ///< REC::Particle for accept(Event)
+    private int[] pids = new int[0]; ///< required PDG codes
+    private int[] pidcounts = new int[0]; ///< minimum number of rows with each required PDG code
+    private int[] charges = new int[0]; ///< required charges
+    private int[] chargecounts = new int[0]; ///< minimum number of rows with each required charge
+    private Integer triggerpid = null; ///< required PDG code of the trigger particle, null if not required
+    private boolean forwardonly = false; ///< count only rows with forward detector status
+
+    private final LongAdder nseen = new LongAdder(); ///< number of tested events
+    private final LongAdder naccepted = new LongAdder(); ///< number of accepted events
+
+
+
+    /** A Constructor
+     * @param schemas schema factory of the input file
+     */
+    public EventPreFilter(SchemaFactory schemas) {
+        this.recbank = new Bank(schemas.getSchema("REC::Particle"));
+    }
+
+
+
+    /**
+     * @param pid PDG code
+     * @param count minimum number of REC::Particle rows with this PDG code
+     * @return this filter
+     */
+    public EventPreFilter requirePID(int pid, int count) {
+        pids = Arrays.copyOf(pids, pids.length + 1);
+        pidcounts = Arrays.copyOf(pidcounts, pidcounts.length + 1);
+        pids[pids.length - 1] = pid;
+        pidcounts[pidcounts.length - 1] = count;
+        return this;
+    }
+
+
+
+    /**
+     * @param charge particle charge
+     * @param count minimum number of REC::Particle rows with this charge
+     * @return this filter
+     */
+    public EventPreFilter requireCharge(int charge, int count) {
+        charges = Arrays.copyOf(charges, charges.length + 1);
+        chargecounts = Arrays.copyOf(chargecounts, chargecounts.length + 1);
+        charges[charges.length - 1] = charge;
+        chargecounts[chargecounts.length - 1] = count;
+        return this;
+    }
+
+
+
+    /**
+     * @param pid PDG code of the trigger particle: the event needs a REC::Particle row with negative status
+     * and this PDG code, the first such row is the trigger particle as in EventContext.trigger
+     * @return this filter
+     */
+    public EventPreFilter requireTrigger(int pid) {
+        this.triggerpid = pid;
+        return this;
+    }
+
+
+
+    /**
+     * @param forwardonly true to count only rows with forward detector status (2000 <= |status| < 4000)
+     * @return this filter
+     */
+    public EventPreFilter setForwardOnly(boolean forwardonly) {
+        this.forwardonly = forwardonly;
+        return this;
+    }
+
+
+
+    /**
+     * read REC::Particle from the event and test it, not thread-safe
+     * @param event hipo event
+     * @return true if the event can pass the selection
+     */
+    public boolean accept(Event event) {
+        event.read(recbank);
+        return accept(recbank);
+    }
+
+
+
+    /**
+     * @param recbank REC::Particle bank of the event
+     * @return true if the event can pass the selection
+     */
+    public boolean accept(Bank recbank) {
+        nseen.increment();
+        boolean pass = test(recbank);
+        if(pass) naccepted.increment();
+        return pass;
+    }
+
+
+
+    /**
+     * @return true if all requirements are satisfied
+     */
+    private boolean test(Bank recbank) {
+        int nrows = recbank.getRows();
+        Columns.Particle reccol = Columns.Particle.of(recbank);
+
+        if(triggerpid != null) {
+            int itrigger = -1;
+            for(int ipart=0; ipart<nrows && itrigger<0; ipart++)
+                if(recbank.getShort(reccol.status,ipart) < 0 && recbank.getInt(reccol.pid,ipart) == triggerpid) itrigger = ipart;
+            if(itrigger < 0) return false;
+            if(forwardonly && !forward(recbank.getShort(reccol.status,itrigger))) return false;
+        }
+
+        for(int ireq=0; ireq<pids.length; ireq++) {
+            int count = 0;
+            for(int ipart=0; ipart<nrows && count<pidcounts[ireq]; ipart++)
+                if(recbank.getInt(reccol.pid,ipart) == pids[ireq] && (!forwardonly || forward(recbank.getShort(reccol.status,ipart)))) count++;
+            if(count < pidcounts[ireq]) return false;
+        }
+
+        for(int ireq=0; ireq<charges.length; ireq++) {
+            int count = 0;
+            for(int ipart=0; ipart<nrows && count<chargecounts[ireq]; ipart++)
+                if(recbank.getByte(reccol.charge,ipart) == charges[ireq] && (!forwardonly || forward(recbank.getShort(reccol.status,ipart)))) count++;
+            if(count < chargecounts[ireq]) return false;
+        }
+
+        return true;
+    }
+
+
+
+    /**
+     * @return true for forward detector status, same as cut_FORWARD of the candidates
+     */
+    private static boolean forward(short status) {
+        return Math.abs(status)>=2000 && Math.abs(status)<4000;
+    }
+
+
+
+    /**
+     * @return number of tested events
+     */
+    public long getSeen() {
+        return nseen.sum();
+    }
+
+
+
+    /**
+     * @return number of accepted events
+     */
+    public long getAccepted() {
+        return naccepted.sum();
+    }
+
+
+
+    /**
+     * @return measured fraction of tested events which were skipped
+     */
+    public double getSkippedFraction() {
+        long seen = nseen.sum();
+        return seen==0 ? 0 : (seen - naccepted.sum())/(double) seen;
+    }
+
+
+
+    /**
+     * reset counters
+     */
+    public void reset() {
+        nseen.reset();
+        naccepted.reset();
+    }
+
+
+
+    /**
+     * @return number of tested events and fraction of skipped events
+     */
+    public String report() {
+        return String.format("pre-filter: %d events tested, %d accepted, %.2f%% skipped", getSeen(), getAccepted(), 100*getSkippedFraction());
+    }
+
+}
@@ -0,0 +1,148 @@
+package uconn.utils.pid.stefan;
+
+public class FiducialGrid {
+    /*
+     * phi_min and phi_max boundaries of HadronCuts.DC_fiducial_cut_theta_phi
+     * tabulated for every pid, sector and region of one magnetic field
+     * on a theta grid from 5 to 45 degrees with 0.05 degree step.
+     * Boundaries between grid points are linearly interpolated, so the cut is a table lookup plus a compare.
+     * Tracks with theta outside the grid are cut with the exact boundaries.
+     *
+     * Interpolation error is at most h^2/8*|phi''(theta)| with h = 0.05 degrees,
+     * for the current parameters it is below 1e-3 degrees (checked in FiducialGridTest),
+     * so the tabulated cut differs from the exact one only for tracks within 1e-3 degrees of a boundary.
+     * Tables are built on first use of each field and take about 1.4 MB each.
+     */
+
+    static final double THETA_MIN = 5; ///< lower edge of the theta grid in degrees
+    static final double THETA_MAX = 45; ///< upper edge of the theta grid in degrees
+    static final double THETA_STEP = 0.05; ///< theta grid step in degrees
+    static final int NTHETA = (int) Math.round((THETA_MAX-THETA_MIN)/THETA_STEP) + 1; ///< number of grid points
+
+    private static volatile FiducialGrid inbending = null; ///< grid for inbending field
+    private static volatile FiducialGrid outbending = null; ///< grid for outbending field
+
+    private final double[] phimin; ///< lower boundaries, flattened as [pid][sector][region][theta]
+    private final double[] phimax; ///< upper boundaries, flattened as [pid][sector][region][theta]
+
+
+
+    /** A constructor, evaluates exact boundaries on all grid points
+     * @param isinbending true for inbending, false for outbending
+     */
+    private FiducialGrid(boolean isinbending) {
+        phimin = new double[6*6*3*NTHETA];
+        phimax = new double[6*6*3*NTHETA];
+        for(int pid=0; pid<6; pid++)
+            for(int sector=1; sector<=6; sector++)
+                for(int region=1; region<=3; region++) {
+                    int offset = slot(pid, sector, region);
+                    for(int itheta=0; itheta<NTHETA; itheta++) {
+                        double theta = THETA_MIN + itheta*THETA_STEP;
+                        phimin[offset+itheta] = HadronCuts.phi_min(isinbending, pid, sector, region, theta);
+                        phimax[offset+itheta] = HadronCuts.phi_max(isinbending, pid, sector, region, theta);
+                    }
+                }
+    }
+
+
+
+    /**
+     * @param isinbending true for inbending, false for outbending
+     * @return grid of this field, built on first call
+     */
+    static FiducialGrid of(boolean isinbending) {
+        FiducialGrid grid = isinbending ? inbending : outbending;
+        if(grid==null) {
+            synchronized(FiducialGrid.class) {
+                grid = isinbending ? inbending : outbending;
+                if(grid==null) {
+                    grid = new FiducialGrid(isinbending);
+                    if(isinbending) inbending = grid;
+                    else outbending = grid;
+                }
+            }
+        }
+        return grid;
+    }
+
+
+
+    /**
+     * @return first grid point of [pid][sector][region]
+     */
+    private static int slot(int pid, int dc_sector, int region) {
+        return ((pid*6 + dc_sector-1)*3 + region-1)*NTHETA;
+    }
+
+
+
+    /**
+     * @param theta_DCr local theta in degrees
+     * @return true if theta is inside the grid
+     */
+    boolean covers(double theta_DCr) {
+        return theta_DCr >= THETA_MIN && theta_DCr <= THETA_MAX;
+    }
+
+
+
+    /**
+     * @param pid row of DC fiducial parameter tables, see ElectronCuts.dc_pid_index
+     * @param dc_sector sector of hits in DC
+     * @param region DC region
+     * @param theta_DCr local theta in degrees, inside the grid
+     * @param phi_DCr local phi in degrees
+     * @return true if phi is between interpolated boundaries
+     */
+    boolean pass(int pid, int dc_sector, int region, double theta_DCr, double phi_DCr) {
+        double u = (theta_DCr - THETA_MIN)/THETA_STEP;
+        int itheta = Math.min((int) u, NTHETA-2);
+        double frac = u - itheta;
+        int ipt = slot(pid, dc_sector, region) + itheta;
+
+        double calc_phi_min = interpolate(phimin, ipt, frac);
+        double calc_phi_max = interpolate(phimax, ipt, frac);
+        return (phi_DCr > calc_phi_min) && (phi_DCr < calc_phi_max);
+    }
+
+
+
+    /**
+     * @param pid row of DC fiducial parameter tables, see ElectronCuts.dc_pid_index
+     * @param dc_sector sector of hits in DC
+     * @param region DC region
+     * @param theta_DCr local theta in degrees, inside the grid
+     * @return interpolated lower phi boundary in degrees
+     */
+    double phi_min(int pid, int dc_sector, int region, double theta_DCr) {
+        double u = (theta_DCr - THETA_MIN)/THETA_STEP;
+        int itheta = Math.min((int) u, NTHETA-2);
+        return interpolate(phimin, slot(pid, dc_sector, region) + itheta, u - itheta);
+    }
+
+
+
+    /**
+     * @param pid row of DC fiducial parameter tables, see ElectronCuts.dc_pid_index
+     * @param dc_sector sector of hits in DC
+     * @param region DC region
+     * @param theta_DCr local theta in degrees, inside the grid
+     * @return interpolated upper phi boundary in degrees
+     */
+    double phi_max(int pid, int dc_sector, int region, double theta_DCr) {
+        double u = (theta_DCr - THETA_MIN)/THETA_STEP;
+        int itheta = Math.min((int) u, NTHETA-2);
+        return interpolate(phimax, slot(pid, dc_sector, region) + itheta, u - itheta);
+    }
+
+
+
+    /**
+     * @return linear interpolation between grid points ipt and ipt+1
+     */
+    private static double interpolate(double[] table, int ipt, double frac) {
+        return table[ipt] + frac*(table[ipt+1] - table[ipt]);
+    }
+
+}
@@ -0,0 +1,139 @@
+package uconn.utils.pid.stefan;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class FiducialSafeRegions {
+    /*
+     * Conservative pre-check of HadronCuts.DC_fiducial_cut_theta_phi with exact boundaries.
+     * For every field, pid, sector and region local theta from 0 to 60 degrees is split into 0.5 degree bins
+     * and each bin keeps the lowest and highest values of phi_min and phi_max inside it,
+     * found from the bin ends and the stationary points of the boundary and widened by MARGIN.
+     * A track with phi above the highest phi_min and below the lowest phi_max of its bin is inside for any theta of the bin,
+     * a track below the lowest phi_min or above the highest phi_max is outside,
+     * only tracks between these bounds need the exact boundaries with their two Math.log calls.
+     * The decision is therefore always the same as with the exact boundaries, FiducialSafeRegionsTest checks it.
+     *
+     * The pre-check works on local theta and phi, which TrackGeometry computes once per track,
+     * so it removes the boundary evaluation but not acos/atan2 of the angles.
+     * Bins with undefined boundaries (theta = 0) and tracks outside the binned range always use the exact boundaries.
+     * Counting of the fast path is off by default, see setCounting().
+     */
+
+    static final int ACCEPT = 1; ///< track is inside the fiducial region
+    static final int REJECT = 0; ///< track is outside the fiducial region
+    static final int UNDECIDED = -1; ///< track is in the boundary band, exact boundaries are needed
+
+    static final double THETA_MAX = 60; ///< upper edge of the binned theta range in degrees
+    static final double BINS_PER_DEGREE = 2; ///< number of theta bins per degree, a power of 2 so binning is exact
+    static final int NBINS = (int) (THETA_MAX*BINS_PER_DEGREE); ///< number of theta bins
+    static final double MARGIN = 1e-6; ///< widening of the bounds in degrees against rounding of the exact boundaries
+
+    /// bounds flattened as [slot][bin][highest phi_min, lowest phi_max, lowest phi_min, highest phi_max], slot as in ElectronCuts.dc_table_slot
+    private static final double[] BOUNDS = new double[2*6*6*3*NBINS*4];
+
+    private static volatile boolean counting = false; ///< count fast path decisions
+    private static final LongAdder accepted = new LongAdder(); ///< tracks accepted by the pre-check
+    private static final LongAdder rejected = new LongAdder(); ///< tracks rejected by the pre-check
+    private static final LongAdder undecided = new LongAdder(); ///< tracks left to the exact boundaries
+
+    static {
+        double[] minrange = new double[2];
+        double[] maxrange = new double[2];
+        for(int slot=0; slot<2*6*6*3; slot++)
+            for(int ibin=0; ibin<NBINS; ibin++) {
+                double theta0 = ibin/BINS_PER_DEGREE, theta1 = (ibin+1)/BINS_PER_DEGREE;
+                HadronCuts.phi_boundary_range(true, slot, theta0, theta1, minrange);
+                HadronCuts.phi_boundary_range(false, slot, theta0, theta1, maxrange);
+
+                int ib = 4*(slot*NBINS + ibin);
+                boolean defined = !Double.isNaN(minrange[0]+minrange[1]+maxrange[0]+maxrange[1]);
+                BOUNDS[ib] = defined ? minrange[1] + MARGIN : Double.NaN;
+                BOUNDS[ib+1] = defined ? maxrange[0] - MARGIN : Double.NaN;
+                BOUNDS[ib+2] = defined ? minrange[0] - MARGIN : Double.NaN;
+                BOUNDS[ib+3] = defined ? maxrange[1] + MARGIN : Double.NaN;
+            }
+    }
+
+
+
+    /**
+     * @param slot DC table slot, see ElectronCuts.dc_table_slot
+     * @param theta_DCr local theta in degrees
+     * @param phi_DCr local phi in degrees
+     * @return ACCEPT or REJECT if the track is clearly inside or outside, UNDECIDED otherwise
+     */
+    static int check(int slot, double theta_DCr, double phi_DCr) {
+        int result = UNDECIDED;
+        if(theta_DCr >= 0 && theta_DCr < THETA_MAX) {
+            int ib = 4*(slot*NBINS + (int) (theta_DCr*BINS_PER_DEGREE));
+            if(phi_DCr > BOUNDS[ib] && phi_DCr < BOUNDS[ib+1]) result = ACCEPT;
+            else if(phi_DCr <= BOUNDS[ib+2] || phi_DCr >= BOUNDS[ib+3]) result = REJECT;
+        }
+
+        if(counting) {
+            if(result == ACCEPT) accepted.increment();
+            else if(result == REJECT) rejected.increment();
+            else undecided.increment();
+        }
+        return result;
+    }
+
+
+
+    /**
+     * @param iscounting true to count pre-check decisions, off by default to keep the cut free of shared counters
+     */
+    public static void setCounting(boolean iscounting) {
+        counting = iscounting;
+    }
+
+
+
+    /**
+     * reset the counters of pre-check decisions
+     */
+    public static void resetCounters() {
+        accepted.reset();
+        rejected.reset();
+        undecided.reset();
+    }
+
+
+
+    /**
+     * @return number of tracks accepted by the pre-check while counting
+     */
+    public static long getAccepted() {
+        return accepted.sum();
+    }
+
+
+
+    /**
+     * @return number of tracks rejected by the pre-check while counting
+     */
+    public static long getRejected() {
+        return rejected.sum();
+    }
+
+
+
+    /**
+     * @return number of tracks which needed the exact boundaries while counting
+     */
+    public static long getUndecided() {
+        return undecided.sum();
+    }
+
+
+
+    /**
+     * @return fraction of counted tracks decided by the pre-check alone, 0 if nothing was counted
+     */
+    public static double fastPathFraction() {
+        long fast = accepted.sum() + rejected.sum();
+        long total = fast + undecided.sum();
+        return total==0 ? 0 : fast/(double) total;
+    }
+
+}
@@ -1,19 +1,18 @@
 package uconn.utils.pid.stefan;
 
+import uconn.utils.pid.SectorGeometry;
+
 public class HadronCuts {
 
-    /**
-     * DC fiducial cut for hadrons
-     * @param dc_sector sector of hits in DC
-     * @param region specify fiducial cuts for which region to use
-     * @param trajx x for region 1 or 2 or 3 from REC::Traj
-     * @param trajy y for region 1 or 2 or 3 from REC::Traj
-     * @param trajz z for region 1 or 2 or 3 from REC::Traj
-     * @param partpid pid assigned to particle candidate
-     * @param isinbending True if magnetic field is inbending
-     */
-    public static boolean DC_fiducial_cut_theta_phi(int dc_sector, int region, double trajx, double trajy, double trajz, int partpid, boolean isinbending) {
+    private static volatile boolean tabulated = false; ///< use FiducialGrid boundaries in DC theta-phi fiducial cut
+    private static volatile boolean tabulatedchi2pid = false; ///< use MomentumGrid curve in chi2pid cut
+    private static volatile boolean prechecked = true; ///< try FiducialSafeRegions before exact boundaries in DC theta-phi fiducial cut
+
+    /// DC theta-phi fiducial parameters, flattened as [field][pid][sector][region][4] with inbending first
+    private static final double[] DC_THETA_PHI_MINPARAMS;
+    private static final double[] DC_THETA_PHI_MAXPARAMS;
 
+    static {
 // new cut parameters for the polynomial cut based on the local theta and phi coordinates (inbending field):
 // replace it in the function: bool DC_fiducial_cut_theta_phi(int j, int region)
 // (optimized for pi+ and pi-, not optimized for Kaons yet)
@@ -202,59 +201,196 @@ public class HadronCuts {
             }
         };
 
-        double[][][][] minparams = isinbending ? minparams_in : minparams_out;
-        double[][][][] maxparams = isinbending ? maxparams_in : maxparams_out;
+        DC_THETA_PHI_MINPARAMS = ElectronCuts.flatten(minparams_in, minparams_out);
+        DC_THETA_PHI_MAXPARAMS = ElectronCuts.flatten(maxparams_in, maxparams_out);
+    }
+
+
+
+    /**
+     * DC fiducial cut for hadrons
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param trajx x for region 1 or 2 or 3 from REC::Traj
+     * @param trajy y for region 1 or 2 or 3 from REC::Traj
+     * @param trajz z for region 1 or 2 or 3 from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     */
+    public static boolean DC_fiducial_cut_theta_phi(int dc_sector, int region, double trajx, double trajy, double trajz, int partpid, boolean isinbending) {
+        return DC_fiducial_cut_theta_phi(dc_sector, region, trajx, trajy, trajz, partpid, isinbending, tabulated);
+    }
+
 
 
-        double trajr = Math.sqrt(Math.pow(trajx,2) + Math.pow(trajy,2) + Math.pow(trajz,2));
-        double theta_DCr = Math.toDegrees(Math.acos(trajz/trajr));
-        double phi_DCr_raw = Math.toDegrees(Math.atan2(trajy/trajr, trajx/trajr));
+    /**
+     * DC fiducial cut for hadrons with explicit choice of boundaries
+     * @param usegrid true to use FiducialGrid boundaries inside the grid
+     */
+    static boolean DC_fiducial_cut_theta_phi(int dc_sector, int region, double trajx, double trajy, double trajz, int partpid, boolean isinbending, boolean usegrid) {
+        if(ElectronCuts.dc_pid_index(partpid)<0 || dc_sector<1 || dc_sector>6 || region<1 || region>3) return false;
 
-        double phi_DCr = 5000;
+        double theta_DCr = SectorGeometry.localTheta(trajx, trajy, trajz);
+        double phi_DCr = SectorGeometry.localPhi(dc_sector, trajx, trajy, trajz);
+        return DC_fiducial_cut_theta_phi_local(dc_sector, region, theta_DCr, phi_DCr, partpid, isinbending, usegrid);
+    }
 
-        if (dc_sector == 1) phi_DCr = phi_DCr_raw;
-        if (dc_sector == 2) phi_DCr = phi_DCr_raw - 60;
-        if (dc_sector == 3) phi_DCr = phi_DCr_raw - 120;
-        if (dc_sector == 4 && phi_DCr_raw > 0) phi_DCr = phi_DCr_raw - 180;
-        if (dc_sector == 4 && phi_DCr_raw < 0) phi_DCr = phi_DCr_raw + 180;
-        if (dc_sector == 5) phi_DCr = phi_DCr_raw + 120;
-        if (dc_sector == 6) phi_DCr = phi_DCr_raw + 60;
 
-        int pid = 0;
 
-        switch (partpid)
-        {
-        case 11:
-            pid = 0;
-            break;
-        case 2212:
-            pid = 1;
-            break;
-        case 211:
-            pid = 2;
-            break;
-        case -211:
-            pid = 3;
-            break;
-        case 321:
-            pid = 4;
-            break;
-        case -321:
-            pid = 5;
-            break;
-        default:
-            return false;
+    /**
+     * DC fiducial cut for hadrons on already computed local angles, see TrackGeometry
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param theta_DCr local theta in degrees, SectorGeometry.localTheta
+     * @param phi_DCr local phi in degrees, SectorGeometry.localPhi
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     */
+    public static boolean DC_fiducial_cut_theta_phi_local(int dc_sector, int region, double theta_DCr, double phi_DCr, int partpid, boolean isinbending) {
+        return DC_fiducial_cut_theta_phi_local(dc_sector, region, theta_DCr, phi_DCr, partpid, isinbending, tabulated);
+    }
+
+
+
+    /**
+     * DC fiducial cut for hadrons on local angles with explicit choice of boundaries
+     * @param usegrid true to use FiducialGrid boundaries inside the grid
+     */
+    static boolean DC_fiducial_cut_theta_phi_local(int dc_sector, int region, double theta_DCr, double phi_DCr, int partpid, boolean isinbending, boolean usegrid) {
+        int pid = ElectronCuts.dc_pid_index(partpid);
+        if(pid<0 || dc_sector<1 || dc_sector>6 || region<1 || region>3) return false;
+
+        if(usegrid) {
+            FiducialGrid grid = FiducialGrid.of(isinbending);
+            if(grid.covers(theta_DCr))
+                return grid.pass(pid, dc_sector, region, theta_DCr, phi_DCr);
+        }
+
+        int slot = ElectronCuts.dc_table_slot(isinbending, pid, dc_sector, region);
+        if(prechecked) {
+            int fast = FiducialSafeRegions.check(slot, theta_DCr, phi_DCr);
+            if(fast != FiducialSafeRegions.UNDECIDED) return fast == FiducialSafeRegions.ACCEPT;
         }
 
-        double calc_phi_min = minparams[pid][dc_sector-1][region-1][0] + minparams[pid][dc_sector-1][region-1][1] * Math.log(theta_DCr) + minparams[pid][dc_sector-1][region-1][2] * theta_DCr + minparams[pid][dc_sector-1][region-1][3] * theta_DCr * theta_DCr;
+        int ipar = 4*slot;
+        double calc_phi_min = phi_boundary(DC_THETA_PHI_MINPARAMS, ipar, theta_DCr);
 
-        double calc_phi_max = maxparams[pid][dc_sector-1][region-1][0] + maxparams[pid][dc_sector-1][region-1][1] * Math.log(theta_DCr) + maxparams[pid][dc_sector-1][region-1][2] * theta_DCr + maxparams[pid][dc_sector-1][region-1][3] * theta_DCr * theta_DCr;
+        double calc_phi_max = phi_boundary(DC_THETA_PHI_MAXPARAMS, ipar, theta_DCr);
 
         return (phi_DCr > calc_phi_min) && (phi_DCr < calc_phi_max);
     }
 
 
 
+    /**
+     * exact phi boundary of DC theta-phi fiducial cut
+     * @param params DC_THETA_PHI_MINPARAMS or DC_THETA_PHI_MAXPARAMS
+     * @param ipar index of the first parameter of [field][pid][sector][region]
+     * @param theta_DCr local theta in degrees
+     */
+    private static double phi_boundary(double[] params, int ipar, double theta_DCr) {
+        return params[ipar] + params[ipar+1] * Math.log(theta_DCr) + params[ipar+2] * theta_DCr + params[ipar+3] * theta_DCr * theta_DCr;
+    }
+
+
+
+    /**
+     * lowest and highest value of an exact phi boundary on a theta interval,
+     * taken at the interval ends and at the zeros of the derivative b/theta + c + 2*d*theta inside the interval
+     * @param ismin true for the lower boundary, false for the upper one
+     * @param slot DC table slot, see ElectronCuts.dc_table_slot
+     * @param theta0,theta1 theta interval in degrees
+     * @param range filled with the lowest and the highest value, NaN if the boundary is not defined on the whole interval
+     */
+    static void phi_boundary_range(boolean ismin, int slot, double theta0, double theta1, double[] range) {
+        double[] params = ismin ? DC_THETA_PHI_MINPARAMS : DC_THETA_PHI_MAXPARAMS;
+        int ipar = 4*slot;
+        double b = params[ipar+1], c = params[ipar+2], d = params[ipar+3];
+
+        double lo = Math.min(phi_boundary(params, ipar, theta0), phi_boundary(params, ipar, theta1));
+        double hi = Math.max(phi_boundary(params, ipar, theta0), phi_boundary(params, ipar, theta1));
+
+        double[] roots = {Double.NaN, Double.NaN};
+        if(d == 0) {
+            if(c != 0) roots[0] = -b/c;
+        } else {
+            double disc = c*c - 8*d*b;
+            if(disc >= 0) {
+                roots[0] = (-c + Math.sqrt(disc))/(4*d);
+                roots[1] = (-c - Math.sqrt(disc))/(4*d);
+            }
+        }
+        for(double root: roots)
+            if(root > theta0 && root < theta1) {
+                double value = phi_boundary(params, ipar, root);
+                lo = Math.min(lo, value);
+                hi = Math.max(hi, value);
+            }
+
+        range[0] = lo;
+        range[1] = hi;
+    }
+
+
+
+    /**
+     * @return exact lower phi boundary of DC theta-phi fiducial cut
+     */
+    static double phi_min(boolean isinbending, int pid, int dc_sector, int region, double theta_DCr) {
+        return phi_boundary(DC_THETA_PHI_MINPARAMS, 4*ElectronCuts.dc_table_slot(isinbending, pid, dc_sector, region), theta_DCr);
+    }
+
+
+
+    /**
+     * @return exact upper phi boundary of DC theta-phi fiducial cut
+     */
+    static double phi_max(boolean isinbending, int pid, int dc_sector, int region, double theta_DCr) {
+        return phi_boundary(DC_THETA_PHI_MAXPARAMS, 4*ElectronCuts.dc_table_slot(isinbending, pid, dc_sector, region), theta_DCr);
+    }
+
+
+
+    /**
+     * switch DC theta-phi fiducial cut between exact boundaries and boundaries tabulated on a theta grid,
+     * see FiducialGrid for the grid range and the boundary error, the default is exact
+     * @param istabulated true to use tabulated boundaries
+     */
+    public static void setTabulatedFiducial(boolean istabulated) {
+        tabulated = istabulated;
+    }
+
+
+
+    /**
+     * @return true if DC theta-phi fiducial cut uses tabulated boundaries
+     */
+    public static boolean isTabulatedFiducial() {
+        return tabulated;
+    }
+
+
+
+    /**
+     * switch the safe region pre-check of DC theta-phi fiducial cut with exact boundaries,
+     * results are the same either way, see FiducialSafeRegions, the default is on
+     * @param isprechecked true to use the pre-check
+     */
+    public static void setFiducialPrecheck(boolean isprechecked) {
+        prechecked = isprechecked;
+    }
+
+
+
+    /**
+     * @return true if DC theta-phi fiducial cut with exact boundaries tries the safe region pre-check first
+     */
+    public static boolean isFiducialPrecheck() {
+        return prechecked;
+    }
+
+
+
     /** Delta VZ cut for hadrons
      * @param pid hadron PID code
      * @param dvz difference between Vz of hadron candidate and electron
@@ -298,14 +434,102 @@ public class HadronCuts {
         boolean chi2cut = false;
         if(isstrict) {
             if(p<2.44) chi2cut = chi2pid < 3*coef;
-            else if(p<4.6) chi2cut = chi2pid < coef*(0.00869 + 14.98587*Math.exp(-p/1.18236) + 1.81751*Math.exp(-p/4.86394));
+            else if(p<4.6) chi2cut = chi2pid < coef*chi2pid_curve(p);
             else chi2cut = chi2pid<coef*(-1.14099 + 24.14992*Math.exp(-p/1.36554) + 2.66876*Math.exp(-p/6.80522));
         } else {
             if(p<2.44) chi2cut = chi2pid < 3*coef;
-            else chi2cut = chi2pid < coef*(0.00869 + 14.98587*Math.exp(-p/1.18236) + 1.81751*Math.exp(-p/4.86394));
+            else if(tabulatedchi2pid && MomentumGrid.coversChi2pid(p)) chi2cut = chi2pid < coef*MomentumGrid.chi2pidCurve(p);
+            else chi2cut = chi2pid < coef*chi2pid_curve(p);
         }
 
         return chi2cut && chi2pid>coef*-3;
     }
 
+
+
+    /**
+     * @param p particle momentum, at least 2.44
+     * @return exact chi2pid upper limit of pions before the charge coefficient
+     */
+    static double chi2pid_curve(double p) {
+        return 0.00869 + 14.98587*Math.exp(-p/1.18236) + 1.81751*Math.exp(-p/4.86394);
+    }
+
+
+
+    /**
+     * both terms are positive and fall with momentum, so this also bounds the curvature at every larger momentum
+     * @param p particle momentum
+     * @return second derivative of chi2pid_curve at p
+     */
+    static double chi2pid_curvature(double p) {
+        return 14.98587/(1.18236*1.18236)*Math.exp(-p/1.18236) + 1.81751/(4.86394*4.86394)*Math.exp(-p/4.86394);
+    }
+
+
+
+    /**
+     * switch pion chi2pid cut between the exact curve and the curve tabulated on a momentum grid,
+     * see MomentumGrid for the grid range and the curve error, the default is exact
+     * @param istabulated true to use the tabulated curve
+     */
+    public static void setTabulatedChi2pid(boolean istabulated) {
+        tabulatedchi2pid = istabulated;
+    }
+
+
+
+    /**
+     * @return true if pion chi2pid cut uses the tabulated curve
+     */
+    public static boolean isTabulatedChi2pid() {
+        return tabulatedchi2pid;
+    }
+
+
+    /*
+     * Batch versions of the cuts above, see ElectronCuts.
+     */
+
+    /**
+     * @param n number of particles
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param trajx x for the region from REC::Traj
+     * @param trajy y for the region from REC::Traj
+     * @param trajz z for the region from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     * @param pass cleared for particles failing the cut
+     */
+    public static void DC_fiducial_cut_theta_phi(int n, int[] dc_sector, int region, float[] trajx, float[] trajy, float[] trajz, int[] partpid, boolean isinbending, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = DC_fiducial_cut_theta_phi(dc_sector[i], region, trajx[i], trajy[i], trajz[i], partpid[i], isinbending);
+    }
+
+
+    /**
+     * @param n number of particles
+     * @param pid hadron PID code
+     * @param dvz difference between Vz of hadron candidate and electron
+     * @param pass cleared for particles failing the cut
+     */
+    public static void Delta_vz_cut(int n, int[] pid, float[] dvz, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = Delta_vz_cut(pid[i], dvz[i]);
+    }
+
+
+    /**
+     * @param n number of particles
+     * @param chi2pid chi2pid value
+     * @param p hadron momentum
+     * @param pid hadron PID code
+     * @param pass cleared for particles failing the cut
+     */
+    public static void Chi2pid_cut(int n, float[] chi2pid, float[] p, int[] pid, boolean[] pass) {
+        for(int i=0; i<n; i++)
+            if(pass[i]) pass[i] = Chi2pid_cut(chi2pid[i], p[i], pid[i]);
+    }
+
 }
@@ -1,10 +1,15 @@
 package uconn.utils.pid.stefan;
 
+import java.util.EnumSet;
+import java.util.function.Predicate;
 import org.jlab.clas.physics.LorentzVector;
-import org.jlab.detector.base.DetectorType;
-import java.util.stream.IntStream;
 import org.jlab.jnp.hipo4.data.Bank;
 import uconn.utils.pid.Candidate;
+import uconn.utils.pid.Columns;
+import uconn.utils.pid.CutPlan;
+import uconn.utils.pid.EventContext;
+import uconn.utils.pid.EventIndex;
+import uconn.utils.pid.FourVector;
 
 public class KaonCandidate extends Candidate {
 
@@ -19,6 +24,8 @@ public class KaonCandidate extends Candidate {
         DELTA_VZ, ///< cut on difference between VZ of Kaon candidate and trigger particle
     }
 
+    public static final double MASS = FourVector.KAON_MASS; ///< kaon mass in GeV
+
 
     /** A Constructor
      * @param ipart particle index
@@ -29,6 +36,15 @@ public class KaonCandidate extends Candidate {
 
 
 
+    /** A Constructor
+     * @param other candidate with already decoded bank information
+     */
+    public KaonCandidate(Candidate other) {
+        super(other);
+    }
+
+
+
     /**
      * return KaonCandidate instance
      * @param ipart particle index
@@ -36,28 +52,48 @@ public class KaonCandidate extends Candidate {
      * @param isinbending true for inbending, false for outbending
      */
     public static KaonCandidate getKaonCandidate(int ipart, Bank recbank, Bank trajbank, boolean isinbending) {
+        return getKaonCandidate(ipart, recbank, trajbank, new EventIndex(null, null, trajbank), isinbending);
+    }
+
+
+
+    /**
+     * return KaonCandidate instance
+     * @param ipart particle index
+     * @param recbank,trajbank particle and trajectory banks
+     * @param index event index shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static KaonCandidate getKaonCandidate(int ipart, Bank recbank, Bank trajbank, EventIndex index, boolean isinbending) {
+        return getKaonCandidate(ipart, recbank, trajbank, index, recbank==null ? null : EventContext.firstRow(recbank), isinbending);
+    }
+
+
+
+    /**
+     * return KaonCandidate instance
+     * @param ipart particle index
+     * @param recbank,trajbank particle and trajectory banks
+     * @param index event index shared by all candidates of the event
+     * @param context trigger particle of the event shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static KaonCandidate getKaonCandidate(int ipart, Bank recbank, Bank trajbank, EventIndex index, EventContext context, boolean isinbending) {
         KaonCandidate candidate = new KaonCandidate(ipart);
         if(!isinbending) candidate.setOUTBENDING();
 
         if(recbank!=null) {
-            candidate.setPID(recbank.getInt("pid",ipart));
-            candidate.setStatus(recbank.getShort("status",ipart));
-            candidate.setCHI2PID(recbank.getFloat("chi2pid",ipart));
-            candidate.setVZ(recbank.getFloat("vz",ipart));
-            candidate.setDVZ(recbank.getFloat("vz",ipart) - recbank.getFloat("vz",0));
-            candidate.setPxyz(recbank.getFloat("px",ipart), recbank.getFloat("py",ipart), recbank.getFloat("pz",ipart));
+            Columns.Particle col = Columns.Particle.of(recbank);
+            candidate.setPID(recbank.getInt(col.pid,ipart));
+            candidate.setStatus(recbank.getShort(col.status,ipart));
+            candidate.setCHI2PID(recbank.getFloat(col.chi2pid,ipart));
+            float vz = recbank.getFloat(col.vz,ipart);
+            candidate.setVZ(vz);
+            context.setDVZ(candidate, vz);
+            candidate.setPxyz(recbank.getFloat(col.px,ipart), recbank.getFloat(col.py,ipart), recbank.getFloat(col.pz,ipart));
         }
 
-        if(trajbank!=null) IntStream.range(0,trajbank.getRows())
-            .filter(i -> trajbank.getShort("pindex",i) == ipart && trajbank.getByte("detector",i) == DetectorType.DC.getDetectorId())
-            .forEach(i -> {
-            if(trajbank.getByte("layer",i) == 6)
-                candidate.setDCxyz(1, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 18)
-                candidate.setDCxyz(2, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-            else if(trajbank.getByte("layer",i) == 36)
-                candidate.setDCxyz(3, trajbank.getFloat("x",i), trajbank.getFloat("y",i), trajbank.getFloat("z",i));
-        });
+        if(trajbank!=null) candidate.setDCxyz(trajbank, index);
 
         return candidate;
     }
@@ -69,19 +105,43 @@ public class KaonCandidate extends Candidate {
      */
     public LorentzVector getLorentzVector() {
         LorentzVector vec = null;
-        if(px!=null && py!=null && pz!=null) {
+        if(has(HAS_PXYZ)) {
             vec = new LorentzVector();
-            vec.setPxPyPzM(px,py,pz,0.493677);
+            vec.setPxPyPzM(px,py,pz,MASS);
         }
         return vec;
     }
 
 
+
+    /**
+     * write four-momentum into a reusable holder without allocation
+     * @param vec holder to fill
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(FourVector vec) {
+        return getFourVector(vec, MASS);
+    }
+
+
+
+    /**
+     * write four-momentum as (px, py, pz, e) into an array
+     * @param vec array to write to
+     * @param offset index of px in the array
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(double[] vec, int offset) {
+        return getFourVector(vec, offset, MASS);
+    }
+
+
+
     /**
      * @return if it is detected in forward
      */
     public boolean cut_FORWARD() {
-        if(status==null) return false;
+        if(!has(HAS_STATUS)) return false;
         return status>=2000 && status<4000;
     }
 
@@ -90,7 +150,7 @@ public class KaonCandidate extends Candidate {
      * @return chi2pid cut
      */
     public boolean cut_CHI2PID() {
-        if(pid==null || chi2pid==null || p==null) return false;
+        if(!has(HAS_PID | HAS_CHI2PID | HAS_P)) return false;
         return Math.abs(chi2pid)<3;
     }
 
@@ -99,10 +159,10 @@ public class KaonCandidate extends Candidate {
      * @return DC fiducial region 1
      */
     public boolean cut_DC_FIDUCIAL_REG1() {
-        if(dc_sector==null || traj_x1==null || traj_y1==null || traj_z1==null || pid==null) return false;
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ1 | HAS_PID)) return false;
         if(field==MagField.INBENDING)
-          return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 1, traj_x1, traj_y1, traj_z1, pid, field==MagField.INBENDING);
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 1, traj_x1, traj_y1, pid, field==MagField.INBENDING);
+          return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 1, getGeometry().getTheta(1), getGeometry().getPhi(1), pid, field==MagField.INBENDING);
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 1, getGeometry().getX(1), getGeometry().getY(1), pid, field==MagField.INBENDING);
     }
 
 
@@ -110,10 +170,10 @@ public class KaonCandidate extends Candidate {
      * @return DC fiducial region 2
      */
     public boolean cut_DC_FIDUCIAL_REG2() {
-        if(dc_sector==null || traj_x2==null || traj_y2==null || traj_z2==null || pid==null) return false;
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ2 | HAS_PID)) return false;
         if(field==MagField.INBENDING)
-          return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 2, traj_x2, traj_y2, traj_z2, pid, field==MagField.INBENDING);
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 2, traj_x2, traj_y2, pid, field==MagField.INBENDING);
+          return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 2, getGeometry().getTheta(2), getGeometry().getPhi(2), pid, field==MagField.INBENDING);
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 2, getGeometry().getX(2), getGeometry().getY(2), pid, field==MagField.INBENDING);
     }
 
 
@@ -121,10 +181,10 @@ public class KaonCandidate extends Candidate {
      * @return DC fiducial region 3
      */
     public boolean cut_DC_FIDUCIAL_REG3() {
-        if(dc_sector==null || traj_x3==null || traj_y3==null || traj_z3==null || pid==null) return false;
+        if(!has(HAS_DC_SECTOR | HAS_TRAJ3 | HAS_PID)) return false;
         if(field==MagField.INBENDING)
-          return HadronCuts.DC_fiducial_cut_theta_phi(dc_sector, 3, traj_x3, traj_y3, traj_z3, pid, field==MagField.INBENDING);
-        return ElectronCuts.DC_fiducial_cut_XY(dc_sector, 3, traj_x3, traj_y3, pid, field==MagField.INBENDING);
+          return HadronCuts.DC_fiducial_cut_theta_phi_local(dc_sector, 3, getGeometry().getTheta(3), getGeometry().getPhi(3), pid, field==MagField.INBENDING);
+        return ElectronCuts.DC_fiducial_cut_XY_rotated(dc_sector, 3, getGeometry().getX(3), getGeometry().getY(3), pid, field==MagField.INBENDING);
     }
 
 
@@ -132,99 +192,131 @@ public class KaonCandidate extends Candidate {
      * @return delta vz cut
      */
     public boolean cut_DELTA_VZ() {
-        if(pid==null || dvz==null) return false;
+        if(!has(HAS_PID | HAS_DVZ)) return false;
         return HadronCuts.Delta_vz_cut(pid, dvz);
     }
 
 
     /**
-     * testing against all K- cuts
+     * @param pdg PDG code required by PID cut
+     * @return test of one kaon cut
      */
-    public boolean isKm() {
-        return isKm(Cut.values());
+    private static Predicate<KaonCandidate> test(Cut cut, int pdg) {
+        switch(cut) {
+        case PID: return candidate -> candidate.has(HAS_PID) && candidate.pid == pdg;
+        case FORWARD: return KaonCandidate::cut_FORWARD;
+        case CHI2PID_CUT: return KaonCandidate::cut_CHI2PID;
+        case DC_FIDUCIAL_REG1: return KaonCandidate::cut_DC_FIDUCIAL_REG1;
+        case DC_FIDUCIAL_REG2: return KaonCandidate::cut_DC_FIDUCIAL_REG2;
+        case DC_FIDUCIAL_REG3: return KaonCandidate::cut_DC_FIDUCIAL_REG3;
+        case DELTA_VZ: return KaonCandidate::cut_DELTA_VZ;
+        default: return candidate -> false;
+        }
     }
 
 
 
+    private static final CutPlan<Cut, KaonCandidate> ALL_KM_CUTS = CutPlan.compile(Cut.class, EnumSet.allOf(Cut.class), cut -> test(cut, -321)); ///< all K- cuts in enum order
+    private static final CutPlan<Cut, KaonCandidate> ALL_KP_CUTS = CutPlan.compile(Cut.class, EnumSet.allOf(Cut.class), cut -> test(cut, 321)); ///< all K+ cuts in enum order
+
+
+
     /**
-     * assembly of multiple K- cuts
-     * @param applycuts the list of cuts required to apply
+     * compile K- cuts into a plan which can be applied to many candidates
+     * @param cuts the list of cuts in the order they are applied
      */
-    public boolean isKm(Cut ...applycuts) {
-        for(Cut thiscut: applycuts) {
-            if(thiscut == Cut.PID) {
-                if(pid == null) return false;
-                else if(pid != -321) return false;
+    public static CutPlan<Cut, KaonCandidate> kmPlan(Cut ...cuts) {
+        return CutPlan.compile(Cut.class, cut -> test(cut, -321), cuts);
+    }
 
-            } else if(thiscut == Cut.FORWARD) {
-                if(!cut_FORWARD()) return false;
 
-            } else if(thiscut == Cut.CHI2PID_CUT) {
-                 if(!cut_CHI2PID()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG1) {
-                 if(!cut_DC_FIDUCIAL_REG1()) return false;
+    /**
+     * compile K- cuts into a plan which can be applied to many candidates
+     * @param cuts the set of cuts, applied in enum order
+     */
+    public static CutPlan<Cut, KaonCandidate> kmPlan(EnumSet<Cut> cuts) {
+        return CutPlan.compile(Cut.class, cuts, cut -> test(cut, -321));
+    }
+
+
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG2) {
-                 if(!cut_DC_FIDUCIAL_REG2()) return false;
+    /**
+     * compile K+ cuts into a plan which can be applied to many candidates
+     * @param cuts the list of cuts in the order they are applied
+     */
+    public static CutPlan<Cut, KaonCandidate> kpPlan(Cut ...cuts) {
+        return CutPlan.compile(Cut.class, cut -> test(cut, 321), cuts);
+    }
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG3) {
-                 if(!cut_DC_FIDUCIAL_REG3()) return false;
 
-            } else if(thiscut == Cut.DELTA_VZ) {
-                 if(!cut_DELTA_VZ()) return false;
 
-            } else {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * compile K+ cuts into a plan which can be applied to many candidates
+     * @param cuts the set of cuts, applied in enum order
+     */
+    public static CutPlan<Cut, KaonCandidate> kpPlan(EnumSet<Cut> cuts) {
+        return CutPlan.compile(Cut.class, cuts, cut -> test(cut, 321));
     }
 
 
 
     /**
-     * testing against all K+ cuts
+     * evaluate all K+ cuts at once, without stopping at failed cuts
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask,
+     * all bits are set exactly when isKp() is true
      */
-    public boolean isKp() {
-        return isKp(Cut.values());
+    public int evaluateKp() {
+        return ALL_KP_CUTS.evaluateAll(this);
     }
 
 
 
     /**
-     * assembly of multiple K+ cuts
-     * @param applycuts the list of cuts required to apply
+     * evaluate all K- cuts at once, without stopping at failed cuts
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask,
+     * all bits are set exactly when isKm() is true
      */
-    public boolean isKp(Cut ...applycuts) {
-        for(Cut thiscut: applycuts) {
-            if(thiscut == Cut.PID) {
-                if(pid == null) return false;
-                else if(pid != 321) return false;
+    public int evaluateKm() {
+        return ALL_KM_CUTS.evaluateAll(this);
+    }
 
-            } else if(thiscut == Cut.FORWARD) {
-                if(!cut_FORWARD()) return false;
 
-            } else if(thiscut == Cut.CHI2PID_CUT) {
-                 if(!cut_CHI2PID()) return false;
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG1) {
-                 if(!cut_DC_FIDUCIAL_REG1()) return false;
+    /**
+     * testing against all K- cuts
+     */
+    public boolean isKm() {
+        return ALL_KM_CUTS.test(this);
+    }
+
+
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG2) {
-                 if(!cut_DC_FIDUCIAL_REG2()) return false;
+    /**
+     * assembly of multiple K- cuts
+     * @param applycuts the list of cuts required to apply
+     */
+    public boolean isKm(Cut ...applycuts) {
+        return ALL_KM_CUTS.test(this, applycuts);
+    }
 
-            } else if(thiscut == Cut.DC_FIDUCIAL_REG3) {
-                 if(!cut_DC_FIDUCIAL_REG3()) return false;
 
-            } else if(thiscut == Cut.DELTA_VZ) {
-                 if(!cut_DELTA_VZ()) return false;
 
-            } else {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * testing against all K+ cuts
+     */
+    public boolean isKp() {
+        return ALL_KP_CUTS.test(this);
+    }
+
+
+
+    /**
+     * assembly of multiple K+ cuts
+     * @param applycuts the list of cuts required to apply
+     */
+    public boolean isKp(Cut ...applycuts) {
+        return ALL_KP_CUTS.test(this, applycuts);
     }
 
 }
@@ -0,0 +1,122 @@
+package uconn.utils.pid.stefan;
+
+import java.util.EnumSet;
+import uconn.utils.pid.Candidate;
+
+public class MultiHypothesisClassifier {
+    /*
+     * Tests one decoded particle against several species at once and returns a mask of passed species.
+     * Every species starts with the PID cut on the REC::Particle PDG code, so at most one hypothesis
+     * (for e.g. pid 211 only pi+) can pass for a track. The classifier decides this from the PDG code alone
+     * and builds and tests only the candidate of that hypothesis: chi2pid, delta vz and DC fiducial cuts
+     * are evaluated once per track instead of once per species, and the DC geometry is the TrackGeometry
+     * shared with other copies of the particle.
+     * Results are the same as iselectron(), ispip(), ispim(), isKp(), isKm(), isproton() and isphoton()
+     * of candidates built from the same particle.
+     */
+
+    /// This is the enum for species hypotheses
+    public enum Hypothesis {
+        ELECTRON(11), ///< ElectronCandidate.iselectron()
+        PIP(211), ///< PionCandidate.ispip()
+        PIM(-211), ///< PionCandidate.ispim()
+        KP(321), ///< KaonCandidate.isKp()
+        KM(-321), ///< KaonCandidate.isKm()
+        PROTON(2212), ///< ProtonCandidate.isproton()
+        PHOTON(22); ///< PhotonCandidate.isphoton()
+
+        public final int pdg; ///< PDG code required by the PID cut
+
+        Hypothesis(int pdg) {
+            this.pdg = pdg;
+        }
+
+        /**
+         * @param pdg PDG code
+         * @return hypothesis with this PDG code, null if there is none
+         */
+        public static Hypothesis of(int pdg) {
+            switch(pdg) {
+            case 11: return ELECTRON;
+            case 211: return PIP;
+            case -211: return PIM;
+            case 321: return KP;
+            case -321: return KM;
+            case 2212: return PROTON;
+            case 22: return PHOTON;
+            default: return null;
+            }
+        }
+    }
+
+
+
+    private final EnumSet<Hypothesis> hypotheses; ///< hypotheses to test
+
+
+
+    /** A Constructor
+     * @param hypotheses the list of hypotheses to test, all hypotheses if empty
+     */
+    public MultiHypothesisClassifier(Hypothesis ...hypotheses) {
+        this.hypotheses = hypotheses.length==0 ? EnumSet.allOf(Hypothesis.class) : EnumSet.noneOf(Hypothesis.class);
+        for(Hypothesis hyp: hypotheses) this.hypotheses.add(hyp);
+    }
+
+
+
+    /**
+     * @param particle candidate with decoded bank information, e.g. from CandidateFactory
+     * @return mask with bit 1<<hypothesis.ordinal() set for every passed hypothesis, see passes()
+     */
+    public int classify(Candidate particle) {
+        Integer pid = particle.getPID();
+        if(pid==null) return 0;
+        Hypothesis hyp = Hypothesis.of(pid);
+        if(hyp==null || !hypotheses.contains(hyp)) return 0;
+        return test(hyp, particle) ? 1 << hyp.ordinal() : 0;
+    }
+
+
+
+    /**
+     * all cuts of one hypothesis, the particle PDG code is already known to match
+     */
+    private static boolean test(Hypothesis hyp, Candidate particle) {
+        switch(hyp) {
+        case ELECTRON: return new ElectronCandidate(particle).iselectron();
+        case PIP: return new PionCandidate(particle).ispip();
+        case PIM: return new PionCandidate(particle).ispim();
+        case KP: return new KaonCandidate(particle).isKp();
+        case KM: return new KaonCandidate(particle).isKm();
+        case PROTON: return new ProtonCandidate(particle).isproton();
+        case PHOTON: return new PhotonCandidate(particle).isphoton();
+        default: return false;
+        }
+    }
+
+
+
+    /**
+     * @param mask mask from classify()
+     * @param hyp species hypothesis
+     * @return true if the particle passes all cuts of this hypothesis
+     */
+    public static boolean passes(int mask, Hypothesis hyp) {
+        return (mask & (1 << hyp.ordinal())) != 0;
+    }
+
+
+
+    /**
+     * @param mask mask from classify()
+     * @return passed hypotheses
+     */
+    public static EnumSet<Hypothesis> passed(int mask) {
+        EnumSet<Hypothesis> passed = EnumSet.noneOf(Hypothesis.class);
+        for(Hypothesis hyp: Hypothesis.values())
+            if(passes(mask, hyp)) passed.add(hyp);
+        return passed;
+    }
+
+}
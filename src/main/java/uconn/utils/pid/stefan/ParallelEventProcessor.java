@@ -0,0 +1,292 @@
+package uconn.utils.pid.stefan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.io.HipoReader;
+
+public class ParallelEventProcessor {
+    /*
+     * Candidate selection over one HIPO file on a fork-join pool.
+     * The file is split into chunks of consecutive events, chunks are split recursively between workers.
+     * Every worker thread opens its own HipoReader and reads its events by index with getEvent(Event, int),
+     * it keeps its own CandidateFactory and Event, so no state is shared between workers.
+     * The selector runs on worker threads, results are handed to the consumer under a lock,
+     * so the consumer is never called concurrently, in ordered mode results arrive in event order.
+     * The reader which counts the events is reused by the first worker, and all readers of a run
+     * are released when process() returns: closed if they are AutoCloseable and no longer referenced.
+     */
+
+    /// selection of one event on a worker thread
+    public interface Selector<R> {
+        /**
+         * @param ievent event index in the file
+         * @param event hipo event, reused by the worker for the next event
+         * @param candidates candidates of the event
+         * @return result for the consumer, null to skip the event
+         */
+        R select(int ievent, Event event, EventCandidates candidates);
+    }
+
+    /// receiver of selection results
+    public interface Consumer<R> {
+        /**
+         * @param ievent event index in the file
+         * @param result result returned by the selector
+         */
+        void accept(int ievent, R result);
+    }
+
+
+
+    private final Supplier<HipoReader> readers; ///< opens a new reader of the file
+    private final boolean isinbending; ///< magnetic field of the run
+    private final CandidateFactory.Species[] species; ///< species to build
+    private int parallelism = Runtime.getRuntime().availableProcessors(); ///< number of worker threads
+    private int chunksize = 1000; ///< number of consecutive events read by one task
+    private boolean ordered = false; ///< true to deliver results in event order
+
+
+
+    /** A Constructor
+     * @param filename HIPO file
+     * @param isinbending true for inbending, false for outbending
+     * @param species the list of species to build, all species if empty
+     */
+    public ParallelEventProcessor(String filename, boolean isinbending, CandidateFactory.Species ...species) {
+        this(() -> {
+            HipoReader reader = new HipoReader();
+            reader.open(filename);
+            return reader;
+        }, isinbending, species);
+    }
+
+
+
+    /** A Constructor
+     * @param readers opens a new reader of the file, it is called once per worker thread
+     * @param isinbending true for inbending, false for outbending
+     * @param species the list of species to build, all species if empty
+     */
+    public ParallelEventProcessor(Supplier<HipoReader> readers, boolean isinbending, CandidateFactory.Species ...species) {
+        this.readers = readers;
+        this.isinbending = isinbending;
+        this.species = species.clone();
+    }
+
+
+
+    /**
+     * @param parallelism number of worker threads, number of processors by default
+     */
+    public void setParallelism(int parallelism) {
+        if(parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+
+
+    /**
+     * @param chunksize number of consecutive events read by one task, 1000 by default
+     */
+    public void setChunkSize(int chunksize) {
+        if(chunksize < 1)
+            throw new IllegalArgumentException("chunk size must be positive: " + chunksize);
+        this.chunksize = chunksize;
+    }
+
+
+
+    /**
+     * @param ordered true to deliver results in event order, false to deliver them as chunks finish
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+
+
+    /**
+     * process all events of the file
+     * @param selector selection run on worker threads
+     * @param consumer receiver of non-null selection results, called by one thread at a time
+     * @return number of processed events
+     */
+    public <R> int process(Selector<R> selector, Consumer<? super R> consumer) {
+        HipoReader reader = readers.get();
+        int nevents = reader.getEventCount();
+        Run<R> run = new Run<>(nevents, reader, selector, consumer);
+        if(nevents == 0) {
+            run.release();
+            return 0;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ChunkTask<>(run, 0, run.nchunks));
+        } finally {
+            pool.shutdown();
+            run.release();
+        }
+        return nevents;
+    }
+
+
+
+    /// per-thread state of a worker
+    private static final class Worker {
+        private final HipoReader reader; ///< reader of this thread
+        private final CandidateFactory factory; ///< candidate factory of this thread
+        private final Event event = new Event(); ///< event reused for all events of this thread
+
+        private Worker(HipoReader reader, boolean isinbending, CandidateFactory.Species[] species) {
+            this.reader = reader;
+            this.factory = new CandidateFactory(reader.getSchemaFactory(), isinbending, species);
+        }
+    }
+
+
+
+    /// state of one process() call
+    private final class Run<R> {
+        private final int nevents; ///< number of events in the file
+        private final int nchunks; ///< number of chunks
+        private final Selector<R> selector; ///< selection
+        private final Consumer<? super R> consumer; ///< receiver of results
+        private final ThreadLocal<Worker> workers; ///< worker state of each pool thread
+        private final List<HipoReader> opened = new ArrayList<>(); ///< readers of all workers, released at the end of the run
+        private HipoReader spare; ///< reader which counted the events, taken by the first worker
+        private final List<List<Result<R>>> pending = new ArrayList<>(); ///< finished chunks waiting for earlier ones in ordered mode
+        private int nextchunk = 0; ///< first chunk not delivered yet in ordered mode
+
+        private Run(int nevents, HipoReader spare, Selector<R> selector, Consumer<? super R> consumer) {
+            this.nevents = nevents;
+            this.nchunks = (nevents + chunksize - 1)/chunksize;
+            this.spare = spare;
+            this.selector = selector;
+            this.consumer = consumer;
+            this.workers = ThreadLocal.withInitial(this::newWorker);
+            for(int ichunk=0; ichunk<nchunks; ichunk++)
+                pending.add(null);
+        }
+
+        /**
+         * worker of a pool thread, with the spare reader or a new one
+         */
+        private Worker newWorker() {
+            HipoReader reader;
+            synchronized(opened) {
+                reader = spare;
+                spare = null;
+            }
+            if(reader == null) reader = readers.get();
+            synchronized(opened) {
+                opened.add(reader);
+            }
+            return new Worker(reader, isinbending, species);
+        }
+
+        /**
+         * close readers of all workers and the spare reader if they are AutoCloseable and drop them,
+         * the first failure to close is rethrown after all readers are released
+         */
+        private void release() {
+            List<HipoReader> readers;
+            synchronized(opened) {
+                readers = new ArrayList<>(opened);
+                if(spare != null) readers.add(spare);
+                opened.clear();
+                spare = null;
+            }
+            RuntimeException failure = null;
+            for(HipoReader reader: readers) {
+                if(!(reader instanceof AutoCloseable)) continue;
+                try {
+                    ((AutoCloseable) reader).close();
+                } catch(Exception e) {
+                    if(failure == null) failure = new IllegalStateException("failed to close HIPO reader", e);
+                }
+            }
+            if(failure != null) throw failure;
+        }
+
+        /**
+         * read and select all events of one chunk
+         */
+        private void select(int ichunk) {
+            Worker worker = workers.get();
+            List<Result<R>> results = new ArrayList<>();
+            int last = Math.min(nevents, (ichunk+1)*chunksize);
+            for(int ievent=ichunk*chunksize; ievent<last; ievent++) {
+                worker.reader.getEvent(worker.event, ievent);
+                R result = selector.select(ievent, worker.event, worker.factory.fromEvent(worker.event));
+                if(result != null) results.add(new Result<>(ievent, result));
+            }
+            deliver(ichunk, results);
+        }
+
+        /**
+         * pass results of a finished chunk to the consumer,
+         * in ordered mode they wait until all earlier chunks are delivered
+         */
+        private synchronized void deliver(int ichunk, List<Result<R>> results) {
+            if(!ordered) {
+                for(Result<R> result: results)
+                    consumer.accept(result.ievent, result.value);
+                return;
+            }
+
+            pending.set(ichunk, results);
+            while(nextchunk < nchunks && pending.get(nextchunk) != null) {
+                for(Result<R> result: pending.get(nextchunk))
+                    consumer.accept(result.ievent, result.value);
+                pending.set(nextchunk++, null);
+            }
+        }
+    }
+
+
+
+    /// selection result of one event
+    private static final class Result<R> {
+        private final int ievent; ///< event index in the file
+        private final R value; ///< result of the selector
+
+        private Result(int ievent, R value) {
+            this.ievent = ievent;
+            this.value = value;
+        }
+    }
+
+
+
+    /// range of chunks, split in halves until one chunk is left
+    private static final class ChunkTask<R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ParallelEventProcessor.Run<R> run; ///< state of the process() call
+        private final int from; ///< first chunk
+        private final int to; ///< chunk after the last one
+
+        private ChunkTask(ParallelEventProcessor.Run<R> run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from == 1) {
+                run.select(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask<>(run, from, middle), new ChunkTask<>(run, middle, to));
+        }
+    }
+
+}
@@ -1,11 +1,16 @@
 package uconn.utils.pid.stefan;
 
+import java.util.EnumSet;
+import java.util.function.Predicate;
 import org.jlab.clas.physics.LorentzVector;
 import org.jlab.jnp.hipo4.data.Bank;
 import org.jlab.detector.base.DetectorType;
-import java.util.stream.IntStream;
 import java.util.EnumMap;
 import uconn.utils.pid.Candidate;
+import uconn.utils.pid.Columns;
+import uconn.utils.pid.CutPlan;
+import uconn.utils.pid.EventIndex;
+import uconn.utils.pid.FourVector;
 
 
 public class PhotonCandidate extends Candidate {
@@ -17,6 +22,8 @@ public class PhotonCandidate extends Candidate {
         BETA ///< cut on beta
     }
 
+    public static final double MASS = FourVector.PHOTON_MASS; ///< photon mass in GeV
+
 
 
     /**
@@ -34,6 +41,15 @@ public class PhotonCandidate extends Candidate {
 
 
 
+    /** A Constructor
+     * @param other candidate with already decoded bank information
+     */
+    public PhotonCandidate(Candidate other) {
+        super(other);
+    }
+
+
+
     /**
      * return PhotonCandidate instance
      * @param ipart particle index
@@ -41,25 +57,39 @@ public class PhotonCandidate extends Candidate {
      * @param isinbending true for inbending, false for outbending
      */
     public static PhotonCandidate getPhotonCandidate(int ipart, Bank recbank, Bank calbank, boolean isinbending) {
+        return getPhotonCandidate(ipart, recbank, calbank, new EventIndex(calbank, null, null), isinbending);
+    }
+
+
+
+    /**
+     * return PhotonCandidate instance
+     * @param ipart particle index
+     * @param recbank,calbank particle and calorimeter banks
+     * @param index event index shared by all candidates of the event
+     * @param isinbending true for inbending, false for outbending
+     */
+    public static PhotonCandidate getPhotonCandidate(int ipart, Bank recbank, Bank calbank, EventIndex index, boolean isinbending) {
         PhotonCandidate candidate = new PhotonCandidate(ipart);
         if(!isinbending) candidate.setOUTBENDING();
 
         if(recbank!=null) {
-            candidate.setPID(recbank.getInt("pid",ipart));
-            candidate.setStatus(recbank.getShort("status",ipart));
-            candidate.setBETA(recbank.getFloat("beta",ipart));
-            candidate.setPxyz(recbank.getFloat("px",ipart), recbank.getFloat("py",ipart), recbank.getFloat("pz",ipart));
+            Columns.Particle col = Columns.Particle.of(recbank);
+            candidate.setPID(recbank.getInt(col.pid,ipart));
+            candidate.setStatus(recbank.getShort(col.status,ipart));
+            candidate.setBETA(recbank.getFloat(col.beta,ipart));
+            candidate.setPxyz(recbank.getFloat(col.px,ipart), recbank.getFloat(col.py,ipart), recbank.getFloat(col.pz,ipart));
         }
 
-        if(calbank!=null) IntStream.range(0,calbank.getRows())
-            .filter(i -> calbank.getShort("pindex",i) == ipart && calbank.getByte("detector",i) == DetectorType.ECAL.getDetectorId())
-            .forEach(i -> {
-            if(calbank.getByte("layer",i) == 1) {
-                candidate.setPCALsector(calbank.getByte("sector",i));
-                candidate.setPCALvw(calbank.getFloat("lv",i), calbank.getFloat("lw",i));
-                candidate.setPCALxyz(calbank.getFloat("x",i), calbank.getFloat("y",i), calbank.getFloat("z",i));
+        if(calbank!=null) {
+            Columns.Calorimeter col = Columns.Calorimeter.of(calbank);
+            int ical = index.getCalorimeterRow(ipart, DetectorType.ECAL.getDetectorId(), 1);
+            if(ical>=0) {
+                candidate.setPCALsector(calbank.getByte(col.sector,ical));
+                candidate.setPCALvw(calbank.getFloat(col.lv,ical), calbank.getFloat(col.lw,ical));
+                candidate.setPCALxyz(calbank.getFloat(col.x,ical), calbank.getFloat(col.y,ical), calbank.getFloat(col.z,ical));
             }
-        });
+        }
 
         return candidate;
     }
@@ -71,20 +101,44 @@ public class PhotonCandidate extends Candidate {
      */
     public LorentzVector getLorentzVector() {
         LorentzVector vec = null;
-        if(px!=null && py!=null && pz!=null) {
+        if(has(HAS_PXYZ)) {
             vec = new LorentzVector();
-            vec.setPxPyPzM(px,py,pz,0);
+            vec.setPxPyPzM(px,py,pz,MASS);
         }
         return vec;
     }
 
 
 
+    /**
+     * write four-momentum into a reusable holder without allocation
+     * @param vec holder to fill
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(FourVector vec) {
+        return getFourVector(vec, MASS);
+    }
+
+
+
+    /**
+     * write four-momentum as (px, py, pz, e) into an array
+     * @param vec array to write to
+     * @param offset index of px in the array
+     * @return false if momentum is not set
+     */
+    public boolean getFourVector(double[] vec, int offset) {
+        return getFourVector(vec, offset, MASS);
+    }
+
+
+
+
     /**
      * @return pid cut
      */
     public boolean cut_PID() {
-        if(pid == null) return false;
+        if(!has(HAS_PID)) return false;
         return pid == 22;
     }
 
@@ -103,17 +157,29 @@ public class PhotonCandidate extends Candidate {
      * @return EC fiducial cut
      */
     public boolean cut_EC_FIDUCIAL(Level eclevel) {
-        if(pcal_sector == null || pcal_lv == null || pcal_lw == null) return false;
+        if(!has(HAS_PCAL_SECTOR | HAS_PCAL_LV | HAS_PCAL_LW)) return false;
         return ElectronCuts.EC_hit_position_fiducial_cut_homogeneous(pcal_sector, pcal_lv, pcal_lw, eclevel);
     }
 
 
 
+    /**
+     * tightest EC fiducial level in one evaluation for stratifying candidates by level,
+     * cut_EC_FIDUCIAL(level) is true for this level and all looser ones
+     * @return tightest passed level, null if even LOOSEST fails or PCAL hit is not set
+     */
+    public Level getECfiducialLevel() {
+        if(!has(HAS_PCAL_SECTOR | HAS_PCAL_LV | HAS_PCAL_LW)) return null;
+        return ElectronCuts.EC_hit_position_fiducial_level(pcal_sector, pcal_lv, pcal_lw);
+    }
+
+
+
     /**
      * @return if it is detected in forward
      */
     public boolean cut_FORWARD() {
-        if(status==null) return false;
+        if(!has(HAS_STATUS)) return false;
         return status>=2000 && status<4000;
     }
 
@@ -123,45 +189,76 @@ public class PhotonCandidate extends Candidate {
      * @return beta cut
      */
     public boolean cut_BETA() {
-        if(beta == null) return false;
+        if(!has(HAS_BETA)) return false;
         return beta > 0.9 && beta < 1.1;
     }
 
 
 
     /**
-     * testing against all photon cuts
+     * @return test of one photon cut
      */
-    public boolean isphoton() {
-        return isphoton(Cut.values());
+    private static Predicate<PhotonCandidate> test(Cut cut) {
+        switch(cut) {
+        case PID: return PhotonCandidate::cut_PID;
+        case FORWARD: return PhotonCandidate::cut_FORWARD;
+        case EC_FIDUCIAL: return PhotonCandidate::cut_EC_FIDUCIAL;
+        case BETA: return PhotonCandidate::cut_BETA;
+        default: return candidate -> false;
+        }
     }
 
 
 
+    private static final CutPlan<Cut, PhotonCandidate> ALL_CUTS = CutPlan.compile(Cut.class, EnumSet.allOf(Cut.class), PhotonCandidate::test); ///< all photon cuts in enum order
+
+
+
     /**
-     * assembly of multiple photon cuts
-     * @param applycuts the list of cuts required to apply
+     * compile photon cuts into a plan which can be applied to many candidates
+     * @param cuts the list of cuts in the order they are applied
      */
-    public boolean isphoton(Cut ...applycuts) {
-        for(Cut thiscut: applycuts) {
+    public static CutPlan<Cut, PhotonCandidate> plan(Cut ...cuts) {
+        return CutPlan.compile(Cut.class, PhotonCandidate::test, cuts);
+    }
 
-            if(thiscut == Cut.PID) {
-                if(!cut_PID()) return false;
 
-            } else if(thiscut == Cut.FORWARD) {
-                if(!cut_FORWARD()) return false;
 
-            } else if(thiscut == Cut.EC_FIDUCIAL) {
-                if(!cut_EC_FIDUCIAL()) return false;
+    /**
+     * compile photon cuts into a plan which can be applied to many candidates
+     * @param cuts the set of cuts, applied in enum order
+     */
+    public static CutPlan<Cut, PhotonCandidate> plan(EnumSet<Cut> cuts) {
+        return CutPlan.compile(Cut.class, cuts, PhotonCandidate::test);
+    }
 
-            } else if(thiscut == Cut.BETA) {
-                if(!cut_BETA()) return false;
 
-            } else {
-                return false;
-            }
-        }
-        return true;
+
+    /**
+     * evaluate all photon cuts at once, without stopping at failed cuts
+     * @return mask with bit 1<<cut.ordinal() set for every passed cut, see CutMask
+     */
+    public int evaluateAll() {
+        return ALL_CUTS.evaluateAll(this);
+    }
+
+
+
+    /**
+     * testing against all photon cuts
+     */
+    public boolean isphoton() {
+        return ALL_CUTS.test(this);
+    }
+
+
+
+    /**
+     * assembly of multiple photon cuts
+     * @param applycuts the list of cuts required to apply
+     */
+    public boolean isphoton(Cut ...applycuts) {
+        return ALL_CUTS.test(this, applycuts);
     }
 
 }
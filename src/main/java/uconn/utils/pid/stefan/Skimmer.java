@@ -0,0 +1,167 @@
+package uconn.utils.pid.stefan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.jnp.hipo4.io.HipoReader;
+import org.jlab.jnp.hipo4.io.HipoWriter;
+
+public class Skimmer {
+    /*
+     * Several skims in one read pass: candidates of every event are built once,
+     * all named selections are evaluated on them, and the event is added to the output of each passing selection.
+     * Events are written as they were read, banks are not decoded into new events or re-encoded.
+     */
+
+    private final SchemaFactory schemas; ///< schema factory of the input files
+    private final CandidateFactory factory; ///< candidate factory shared by all selections
+    private final List<Selection> selections = new ArrayList<>(); ///< registered selections
+    private long nevents = 0; ///< number of skimmed events
+
+
+
+    /** A Constructor
+     * @param schemas schema factory of the input files
+     * @param isinbending true for inbending, false for outbending
+     * @param species the list of species needed by the selections, all species if empty
+     */
+    public Skimmer(SchemaFactory schemas, boolean isinbending, CandidateFactory.Species ...species) {
+        this.schemas = schemas;
+        this.factory = new CandidateFactory(schemas, isinbending, species);
+    }
+
+
+
+    /**
+     * add a selection written to a new HIPO file with the schemas of the input
+     * @param name selection name
+     * @param selection event selection on candidates
+     * @param filename output file
+     */
+    public void addSelection(String name, Predicate<? super EventCandidates> selection, String filename) {
+        checkName(name);
+        HipoWriter writer = new HipoWriter();
+        writer.getSchemaFactory().copy(schemas);
+        writer.open(filename);
+        addSelection(name, selection, writer);
+    }
+
+
+
+    /**
+     * add a selection written to an opened writer, the writer is closed by close()
+     * @param name selection name
+     * @param selection event selection on candidates
+     * @param writer opened hipo writer
+     */
+    public void addSelection(String name, Predicate<? super EventCandidates> selection, HipoWriter writer) {
+        checkName(name);
+        selections.add(new Selection(name, selection, writer));
+    }
+
+
+
+    /**
+     * @param name selection name
+     * @throws IllegalArgumentException if a selection of this name is already defined
+     */
+    private void checkName(String name) {
+        for(Selection other: selections)
+            if(other.name.equals(name))
+                throw new IllegalArgumentException("selection " + name + " is already defined");
+    }
+
+
+
+    /**
+     * evaluate all selections on one event and write it to the outputs of passing ones
+     * @param event hipo event
+     * @return number of outputs the event was written to
+     */
+    public int skim(Event event) {
+        EventCandidates candidates = factory.fromEvent(event);
+        nevents++;
+
+        int nwritten = 0;
+        for(Selection selection: selections) {
+            if(selection.test.test(candidates)) {
+                selection.writer.addEvent(event);
+                selection.npassed++;
+                nwritten++;
+            }
+        }
+        return nwritten;
+    }
+
+
+
+    /**
+     * skim all events of a reader
+     * @param reader opened reader of a file with the same schemas
+     * @return number of read events
+     */
+    public long skim(HipoReader reader) {
+        Event event = new Event();
+        long nread = 0;
+        while(reader.hasNext()) {
+            reader.nextEvent(event);
+            skim(event);
+            nread++;
+        }
+        return nread;
+    }
+
+
+
+    /**
+     * @param name selection name
+     * @return number of events written by this selection
+     */
+    public long getPassed(String name) {
+        for(Selection selection: selections)
+            if(selection.name.equals(name)) return selection.npassed;
+        throw new IllegalArgumentException("selection " + name + " is not defined");
+    }
+
+
+
+    /**
+     * @return number of skimmed events and number and fraction of events written by each selection
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format("%d events skimmed%n", nevents));
+        for(Selection selection: selections)
+            sb.append(String.format("%-20s %12d events %8.4f%%%n", selection.name, selection.npassed,
+                    nevents==0 ? 0 : 100.0*selection.npassed/nevents));
+        return sb.toString();
+    }
+
+
+
+    /**
+     * close all outputs
+     */
+    public void close() {
+        for(Selection selection: selections)
+            selection.writer.close();
+    }
+
+
+
+    /// named selection with its output
+    private static final class Selection {
+        private final String name; ///< selection name
+        private final Predicate<? super EventCandidates> test; ///< event selection
+        private final HipoWriter writer; ///< output of passing events
+        private long npassed = 0; ///< number of written events
+
+        private Selection(String name, Predicate<? super EventCandidates> test, HipoWriter writer) {
+            this.name = name;
+            this.test = test;
+            this.writer = writer;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package uconn.utils.pid.stefan;
+
+public class VectorCuts {
+    /*
+     * Batch DC XY fiducial cut with an optional Vector API implementation.
+     * It is the only table driven cut where the vector lanes pay off, the other batch cuts
+     * stay in ElectronCuts. This is the scalar implementation used on Java 8.
+     * The jar is multi-release: on Java 17+ this class is replaced by META-INF/versions/17 one,
+     * which uses the Vector API if jdk.incubator.vector module is available (--add-modules jdk.incubator.vector)
+     * and falls back to this same scalar loop otherwise.
+     * All implementations give exactly the same results as ElectronCuts.
+     */
+
+
+
+    /**
+     * @return true if the cut is evaluated with the Vector API
+     */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+
+
+    /**
+     * batch version of ElectronCuts.DC_fiducial_cut_XY
+     * @param n number of particles
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param x x for the region from REC::Traj
+     * @param y y for the region from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     * @param pass cleared for particles failing the cut
+     */
+    public static void DC_fiducial_cut_XY(int n, int[] dc_sector, int region, float[] x, float[] y, int[] partpid, boolean isinbending, boolean[] pass) {
+        ElectronCuts.DC_fiducial_cut_XY(n, dc_sector, region, x, y, partpid, isinbending, pass);
+    }
+
+}
@@ -0,0 +1,41 @@
+package uconn.utils.pid.stefan;
+
+public class VectorCuts {
+    /*
+     * Java 17 version of VectorCuts from the multi-release jar.
+     * The Vector API is an incubator module, it is used only if the module was added at runtime
+     * (--add-modules jdk.incubator.vector) and the platform has at least two double lanes,
+     * otherwise the scalar loop of ElectronCuts is used.
+     * VectorKernels is only loaded when the module is present.
+     */
+
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorKernels.isSupported();
+
+
+
+    /**
+     * @return true if the cut is evaluated with the Vector API
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+
+
+    /**
+     * batch version of ElectronCuts.DC_fiducial_cut_XY
+     * @param n number of particles
+     * @param dc_sector sector of hits in DC
+     * @param region specify fiducial cuts for which region to use
+     * @param x x for the region from REC::Traj
+     * @param y y for the region from REC::Traj
+     * @param partpid pid assigned to particle candidate
+     * @param isinbending True if magnetic field is inbending
+     * @param pass cleared for particles failing the cut
+     */
+    public static void DC_fiducial_cut_XY(int n, int[] dc_sector, int region, float[] x, float[] y, int[] partpid, boolean isinbending, boolean[] pass) {
+        if(VECTORIZED) VectorKernels.DC_fiducial_cut_XY(n, dc_sector, region, x, y, partpid, isinbending, pass);
+        else ElectronCuts.DC_fiducial_cut_XY(n, dc_sector, region, x, y, partpid, isinbending, pass);
+    }
+
+}
@@ -0,0 +1,113 @@
+package uconn.utils.pid.stefan;
+
+import java.util.Arrays;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+import uconn.utils.pid.SectorGeometry;
+
+final class VectorKernels {
+    /*
+     * Vector API implementation of the DC XY fiducial cut.
+     * Inputs are widened from float to double lanes, table indices are computed with int lanes
+     * and the per-sector parameters are gathered from the flattened ElectronCuts tables,
+     * so every lane does exactly the scalar arithmetic and the results are identical to ElectronCuts.
+     * The tail which does not fill a whole vector is done with the scalar cut.
+     */
+
+    private static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED; ///< double lanes
+    private static final VectorSpecies<Float> FS = DS.vectorBitSize() >= 128 ? VectorSpecies.of(float.class, VectorShape.forBitSize(DS.vectorBitSize()/2)) : null; ///< float lanes of the same count
+    private static final VectorSpecies<Integer> IS = DS.vectorBitSize() >= 128 ? VectorSpecies.of(int.class, VectorShape.forBitSize(DS.vectorBitSize()/2)) : null; ///< int lanes of the same count
+
+    /// pids in the row order of ElectronCuts.dc_pid_index
+    private static final int[] DC_PIDS = {11, 2212, 211, -211, 321, -321};
+
+    /// rotation of the DC sector to the sector 1 frame as (cos, sin), laid out like the DC XY tables
+    private static final double[] DC_ROTATION = new double[ElectronCuts.DC_XY_MINPARAMS.length];
+
+    /// table indices of the lanes, the gather takes them from an array
+    private static final ThreadLocal<int[]> LANE_INDEX = ThreadLocal.withInitial(() -> new int[DS.length()]);
+
+    static {
+        for(int ifield=0; ifield<2; ifield++)
+            for(int pid=0; pid<DC_PIDS.length; pid++)
+                for(int sector=1; sector<=6; sector++)
+                    for(int region=1; region<=3; region++) {
+                        int ipar = ElectronCuts.dc_xy_index(ifield==0, pid, sector, region);
+                        DC_ROTATION[ipar] = SectorGeometry.cos(sector);
+                        DC_ROTATION[ipar+1] = SectorGeometry.sin(sector);
+                    }
+    }
+
+
+    private VectorKernels() {}
+
+
+
+    /**
+     * @return true if the preferred shape has at least two double lanes
+     */
+    static boolean isSupported() {
+        return FS != null && DS.length() >= 2 && FS.length() == DS.length() && IS.length() == DS.length();
+    }
+
+
+
+    /**
+     * load float values into double lanes
+     */
+    private static DoubleVector load(float[] values, int i) {
+        return (DoubleVector) FloatVector.fromArray(FS, values, i).convertShape(VectorOperators.F2D, DS, 0);
+    }
+
+
+
+    static void DC_fiducial_cut_XY(int n, int[] dc_sector, int region, float[] x, float[] y, int[] partpid, boolean isinbending, boolean[] pass) {
+        if(region<1 || region>3) {
+            Arrays.fill(pass, 0, n, false);
+            return;
+        }
+
+        // dc_xy_index = 36*pid + 6*sector + offset of field and region
+        int offset = ElectronCuts.dc_xy_index(isinbending, 0, 0, region);
+        int[] ipar = LANE_INDEX.get();
+
+        int i = 0;
+        for(; i<DS.loopBound(n); i+=DS.length()) {
+            IntVector vsec = IntVector.fromArray(IS, dc_sector, i);
+            IntVector vpartpid = IntVector.fromArray(IS, partpid, i);
+            IntVector vpid = IntVector.broadcast(IS, -1);
+            for(int pid=0; pid<DC_PIDS.length; pid++)
+                vpid = vpid.blend(pid, vpartpid.compare(VectorOperators.EQ, DC_PIDS[pid]));
+            VectorMask<Integer> valid = vpid.compare(VectorOperators.GE, 0)
+                .and(vsec.compare(VectorOperators.GE, 1))
+                .and(vsec.compare(VectorOperators.LE, 6));
+            vpid.mul(36).add(vsec.mul(6)).add(offset).blend(0, valid.not()).intoArray(ipar, 0);
+
+            DoubleVector vx = load(x, i);
+            DoubleVector vy = load(y, i);
+            DoubleVector vcos = DoubleVector.fromArray(DS, DC_ROTATION, 0, ipar, 0);
+            DoubleVector vsin = DoubleVector.fromArray(DS, DC_ROTATION, 1, ipar, 0);
+            DoubleVector rx = vx.mul(vcos).sub(vy.mul(vsin));
+            DoubleVector ry = vx.mul(vsin).add(vy.mul(vcos));
+
+            DoubleVector calc_min = DoubleVector.fromArray(DS, ElectronCuts.DC_XY_MINPARAMS, 0, ipar, 0)
+                .add(DoubleVector.fromArray(DS, ElectronCuts.DC_XY_MINPARAMS, 1, ipar, 0).mul(rx));
+            DoubleVector calc_max = DoubleVector.fromArray(DS, ElectronCuts.DC_XY_MAXPARAMS, 0, ipar, 0)
+                .add(DoubleVector.fromArray(DS, ElectronCuts.DC_XY_MAXPARAMS, 1, ipar, 0).mul(rx));
+
+            VectorMask.fromArray(DS, pass, i)
+                .and(valid.cast(DS))
+                .and(ry.compare(VectorOperators.GT, calc_min))
+                .and(ry.compare(VectorOperators.LT, calc_max))
+                .intoArray(pass, i);
+        }
+        for(; i<n; i++)
+            if(pass[i]) pass[i] = ElectronCuts.DC_fiducial_cut_XY(dc_sector[i], region, x[i], y[i], partpid[i], isinbending);
+    }
+
+}
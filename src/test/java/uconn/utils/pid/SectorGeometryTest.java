@@ -0,0 +1,91 @@
+package uconn.utils.pid;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SectorGeometryTest {
+    /*
+     * SectorGeometry.sector against the atan2 based DC sector lookup it replaced in Candidate.
+     * Inputs are floats at a region 2 z, as they come from REC::Traj.
+     * The only known difference is within ~1e-15 degrees of the +90 boundary, where atan2 rounds to 90,
+     * so x = 0 on the +-90 boundaries is not moved by one ulp.
+     */
+
+    private static final float Z = 250; ///< z of DC region 2
+
+
+
+    /**
+     * DC sector lookup of Candidate before SectorGeometry
+     * @return DC sector, 0 if it can't be determined
+     */
+    private static int oldSector(float x, float y, float z) {
+        double rr = Math.sqrt(x*x+y*x+z*z);
+        double phi = Math.toDegrees(Math.atan2(y/rr, x/rr));
+
+        if(phi < 30 && phi >= -30) return 1;
+        else if(phi < 90 && phi >= 30) return 2;
+        else if(phi < 150 && phi >= 90) return 3;
+        else if(phi >= 150 || phi < -150) return 4;
+        else if(phi < -90 && phi >= -150) return 5;
+        else if(phi < -30 && phi >= -90) return 6;
+
+        return 0;
+    }
+
+
+
+    private static void assertSameSector(float x, float y) {
+        assertEquals("x=" + x + " y=" + y, oldSector(x, y, Z), SectorGeometry.sector(x, y));
+    }
+
+
+
+    @Test
+    public void denseGrid() {
+        int n = 1500;
+        for(int ix=-n; ix<=n; ix++)
+            for(int iy=-n; iy<=n; iy++)
+                assertSameSector(400f*ix/n, 400f*iy/n);
+    }
+
+
+
+    @Test
+    public void nearBoundaries() {
+        double[] boundaries = {-150, -90, -30, 30, 90, 150, 180};
+        double[] offsets = {0, 1e-9, 1e-7, 1e-5, 1e-3, 1e-1};
+        for(double boundary: boundaries)
+            for(double offset: offsets)
+                for(int sign=-1; sign<=1; sign+=2)
+                    for(double r=1; r<400; r*=1.1) {
+                        double phi = Math.toRadians(boundary + sign*offset);
+                        float x = (float) (r*Math.cos(phi));
+                        float y = (float) (r*Math.sin(phi));
+                        if(offset==0 && Math.abs(boundary)==90) x = 0;
+                        assertSameSector(x, y);
+                        if(x != 0) {
+                            assertSameSector(Math.nextUp(x), y);
+                            assertSameSector(Math.nextDown(x), y);
+                        }
+                        assertSameSector(x, Math.nextUp(y));
+                        assertSameSector(x, Math.nextDown(y));
+                    }
+    }
+
+
+
+    @Test
+    public void exactBoundaryLines() {
+        // sector edges at y*sqrt(3) = +-x, x is the float nearest to the edge
+        for(int k=1; k<=1000; k++) {
+            float y = k*0.25f;
+            float x = (float) (y*Math.sqrt(3));
+            for(float sx: new float[] {x, -x})
+                for(float sy: new float[] {y, -y})
+                    assertSameSector(sx, sy);
+        }
+    }
+
+}
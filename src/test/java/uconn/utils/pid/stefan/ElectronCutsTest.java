@@ -0,0 +1,47 @@
+package uconn.utils.pid.stefan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import uconn.utils.pid.Candidate.Level;
+
+public class ElectronCutsTest {
+    /*
+     * Nesting of the EC fiducial levels and EC_hit_position_fiducial_level against the per-level cuts.
+     * EC_hit_position_fiducial_level is only correct while every level lies inside the next looser one,
+     * so editing EC_FIDUCIAL_LIMITS must keep fiducialLimitsNested green.
+     */
+
+
+
+    @Test
+    public void fiducialLimitsNested() {
+        double[] limits = ElectronCuts.EC_FIDUCIAL_LIMITS;
+        Level[] levels = Level.values();
+        for(int ilvl=1; ilvl<levels.length; ilvl++)
+            for(int isec=0; isec<6; isec++) {
+                int ilim = (ilvl*6 + isec)*4;
+                int iloose = ilim - 6*4;
+                assertTrue("EC fiducial level " + levels[ilvl] + " of sector " + (isec+1) + " is not inside " + levels[ilvl-1],
+                    limits[ilim] >= limits[iloose] && limits[ilim+1] <= limits[iloose+1]
+                    && limits[ilim+2] >= limits[iloose+2] && limits[ilim+3] <= limits[iloose+3]);
+            }
+    }
+
+
+
+    @Test
+    public void fiducialLevelAgreesWithCuts() {
+        for(int sector=0; sector<=7; sector++)
+            for(double lv=0; lv<=410; lv+=1)
+                for(double lw=0; lw<=410; lw+=1) {
+                    Level tightest = ElectronCuts.EC_hit_position_fiducial_level(sector, lv, lw);
+                    for(Level lvl: Level.values())
+                        assertEquals("sector " + sector + " lv " + lv + " lw " + lw + " " + lvl,
+                            ElectronCuts.EC_hit_position_fiducial_cut_homogeneous(sector, lv, lw, lvl),
+                            ElectronCuts.EC_fiducial_level_passes(tightest, lvl));
+                }
+    }
+
+}
@@ -0,0 +1,68 @@
+package uconn.utils.pid.stefan;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+import uconn.utils.pid.SectorGeometry;
+
+public class FiducialGridTest {
+    /*
+     * Tabulated boundaries of FiducialGrid against the exact boundaries of HadronCuts.DC_fiducial_cut_theta_phi.
+     */
+
+    private static final double MAX_ERROR = 1e-3; ///< interpolation error quoted in FiducialGrid, degrees
+    private static final int[] PIDS = {11, 2212, 211, -211, 321, -321}; ///< pids in the row order of ElectronCuts.dc_pid_index
+
+
+
+    @Test
+    public void interpolatedBoundariesCloseToExact() {
+        double maxerr = 0;
+        for(boolean isinbending: new boolean[] {true, false}) {
+            FiducialGrid grid = FiducialGrid.of(isinbending);
+            for(int pid=0; pid<6; pid++)
+                for(int sector=1; sector<=6; sector++)
+                    for(int region=1; region<=3; region++)
+                        for(int itheta=0; itheta<FiducialGrid.NTHETA-1; itheta++)
+                            for(int isub=1; isub<10; isub++) {
+                                double theta = FiducialGrid.THETA_MIN + (itheta + isub/10.0)*FiducialGrid.THETA_STEP;
+                                maxerr = Math.max(maxerr, Math.abs(grid.phi_min(pid, sector, region, theta) - HadronCuts.phi_min(isinbending, pid, sector, region, theta)));
+                                maxerr = Math.max(maxerr, Math.abs(grid.phi_max(pid, sector, region, theta) - HadronCuts.phi_max(isinbending, pid, sector, region, theta)));
+                            }
+        }
+        assertTrue("max boundary error " + maxerr, maxerr < MAX_ERROR);
+    }
+
+
+
+    @Test
+    public void disagreesOnlyNearBoundaries() {
+        // tracks uniform in local theta of the grid and local phi within 35 degrees from the sector center
+        Random rand = new Random(12345);
+        int ndiff = 0, ntracks = 1000000;
+        for(int itrack=0; itrack<ntracks; itrack++) {
+            boolean isinbending = rand.nextBoolean();
+            int ipid = rand.nextInt(PIDS.length);
+            int sector = 1 + rand.nextInt(6);
+            int region = 1 + rand.nextInt(3);
+            double theta = Math.toRadians(FiducialGrid.THETA_MIN + (FiducialGrid.THETA_MAX-FiducialGrid.THETA_MIN)*rand.nextDouble());
+            double phi = Math.toRadians(60*(sector-1) + 70*(rand.nextDouble()-0.5));
+            double r = 250 + 250*rand.nextDouble();
+            double x = r*Math.sin(theta)*Math.cos(phi), y = r*Math.sin(theta)*Math.sin(phi), z = r*Math.cos(theta);
+
+            boolean exact = HadronCuts.DC_fiducial_cut_theta_phi(sector, region, x, y, z, PIDS[ipid], isinbending, false);
+            boolean tabulated = HadronCuts.DC_fiducial_cut_theta_phi(sector, region, x, y, z, PIDS[ipid], isinbending, true);
+            if(exact != tabulated) {
+                ndiff++;
+                double theta_DCr = SectorGeometry.localTheta(x, y, z);
+                double phi_DCr = SectorGeometry.localPhi(sector, x, y, z);
+                double distance = Math.min(Math.abs(phi_DCr - HadronCuts.phi_min(isinbending, ipid, sector, region, theta_DCr)),
+                    Math.abs(phi_DCr - HadronCuts.phi_max(isinbending, ipid, sector, region, theta_DCr)));
+                assertTrue("track " + itrack + " differs " + distance + " degrees from the boundary", distance < MAX_ERROR);
+            }
+        }
+        assertTrue(ndiff + " of " + ntracks + " tracks differ", ndiff < ntracks/10000);
+    }
+
+}
@@ -0,0 +1,74 @@
+package uconn.utils.pid.stefan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class FiducialSafeRegionsTest {
+    /*
+     * Decisions of the FiducialSafeRegions pre-check against the exact boundaries of HadronCuts.DC_fiducial_cut_theta_phi.
+     */
+
+    /**
+     * @return exact result of the cut on local angles
+     */
+    private static boolean exact(boolean isinbending, int pid, int sector, int region, double theta, double phi) {
+        return phi > HadronCuts.phi_min(isinbending, pid, sector, region, theta) && phi < HadronCuts.phi_max(isinbending, pid, sector, region, theta);
+    }
+
+
+
+    private static void assertSameDecision(boolean isinbending, int pid, int sector, int region, double theta, double phi) {
+        int fast = FiducialSafeRegions.check(ElectronCuts.dc_table_slot(isinbending, pid, sector, region), theta, phi);
+        if(fast != FiducialSafeRegions.UNDECIDED)
+            assertEquals("field " + isinbending + " pid " + pid + " sector " + sector + " region " + region + " theta " + theta + " phi " + phi,
+                exact(isinbending, pid, sector, region, theta, phi), fast == FiducialSafeRegions.ACCEPT);
+    }
+
+
+
+    @Test
+    public void randomTracks() {
+        // tracks uniform in local theta of the binned range and local phi within 35 degrees from the sector center
+        Random rand = new Random(12345);
+        int ntracks = 1000000, nfast = 0;
+        for(int itrack=0; itrack<ntracks; itrack++) {
+            boolean isinbending = rand.nextBoolean();
+            int pid = rand.nextInt(6);
+            int sector = 1 + rand.nextInt(6);
+            int region = 1 + rand.nextInt(3);
+            double theta = FiducialSafeRegions.THETA_MAX*rand.nextDouble();
+            double phi = 70*(rand.nextDouble()-0.5);
+            assertSameDecision(isinbending, pid, sector, region, theta, phi);
+            if(FiducialSafeRegions.check(ElectronCuts.dc_table_slot(isinbending, pid, sector, region), theta, phi) != FiducialSafeRegions.UNDECIDED) nfast++;
+        }
+        assertTrue("only " + nfast + " of " + ntracks + " tracks decided by the pre-check", nfast > ntracks/2);
+    }
+
+
+
+    @Test
+    public void tracksNextToBoundaries() {
+        Random rand = new Random(54321);
+        double[] offsets = {0, 1e-12, 1e-9, 1e-6, 1e-3};
+        for(int slot=0; slot<2*6*6*3; slot++) {
+            boolean isinbending = slot < 6*6*3;
+            int pid = slot/(6*3) % 6;
+            int sector = 1 + slot/3 % 6;
+            int region = 1 + slot % 3;
+            for(int itheta=0; itheta<200; itheta++) {
+                double theta = FiducialSafeRegions.THETA_MAX*rand.nextDouble();
+                double phimin = HadronCuts.phi_min(isinbending, pid, sector, region, theta);
+                double phimax = HadronCuts.phi_max(isinbending, pid, sector, region, theta);
+                for(double offset: offsets)
+                    for(int sign=-1; sign<=1; sign+=2) {
+                        assertSameDecision(isinbending, pid, sector, region, theta, phimin + sign*offset);
+                        assertSameDecision(isinbending, pid, sector, region, theta, phimax + sign*offset);
+                    }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package uconn.utils.pid.stefan;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MomentumGridTest {
+    /*
+     * Tabulated chi2pid curve of MomentumGrid against the exact formula of HadronCuts
+     * and against the analytic error bound quoted in MomentumGrid.
+     */
+
+    private static final double MAX_CHI2PID_ERROR = 2e-5; ///< chi2pid error quoted in MomentumGrid
+
+
+
+    @Test
+    public void boundBelowQuotedError() {
+        assertTrue("chi2pid bound " + MomentumGrid.chi2pidErrorBound(), MomentumGrid.chi2pidErrorBound() < MAX_CHI2PID_ERROR);
+    }
+
+
+
+    @Test
+    public void chi2pidCurveWithinBound() {
+        double maxerr = 0;
+        for(int ip=0; ip<MomentumGrid.NCHI2PID-1; ip++)
+            for(int isub=1; isub<10; isub++) {
+                double p = MomentumGrid.CHI2PID_P_MIN + (ip + isub/10.0)*MomentumGrid.P_STEP;
+                maxerr = Math.max(maxerr, Math.abs(MomentumGrid.chi2pidCurve(p) - HadronCuts.chi2pid_curve(p)));
+            }
+        assertTrue("max chi2pid error " + maxerr, maxerr <= MomentumGrid.chi2pidErrorBound());
+    }
+
+}
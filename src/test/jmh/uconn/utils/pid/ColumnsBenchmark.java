@@ -0,0 +1,145 @@
+package uconn.utils.pid;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnsBenchmark {
+    /*
+     * Reading one event of REC::Particle and REC::Traj with column names on every access
+     * against column handles resolved once per event with Columns.
+     */
+
+    private static final int NPARTICLES = 10; ///< rows of REC::Particle in the event
+    private static final int NTRAJ = 60; ///< rows of REC::Traj in the event
+
+    private Bank recbank;
+    private Bank trajbank;
+
+
+
+    @Setup
+    public void setup() {
+        Schema recschema = new Schema.SchemaBuilder("REC::Particle", 300, 31)
+            .addEntry("pid", "I", "").addEntry("px", "F", "").addEntry("py", "F", "").addEntry("pz", "F", "")
+            .addEntry("vx", "F", "").addEntry("vy", "F", "").addEntry("vz", "F", "").addEntry("vt", "F", "")
+            .addEntry("charge", "B", "").addEntry("beta", "F", "").addEntry("chi2pid", "F", "").addEntry("status", "S", "")
+            .build();
+        Schema trajschema = new Schema.SchemaBuilder("REC::Traj", 300, 36)
+            .addEntry("pindex", "S", "").addEntry("index", "S", "").addEntry("detector", "B", "").addEntry("layer", "B", "")
+            .addEntry("x", "F", "").addEntry("y", "F", "").addEntry("z", "F", "")
+            .addEntry("cx", "F", "").addEntry("cy", "F", "").addEntry("cz", "F", "").addEntry("path", "F", "")
+            .build();
+
+        Random rand = new Random(12345);
+        recbank = new Bank(recschema, NPARTICLES);
+        for(int ipart=0; ipart<NPARTICLES; ipart++) {
+            recbank.putInt("pid", ipart, rand.nextBoolean() ? 211 : 2212);
+            recbank.putFloat("px", ipart, rand.nextFloat());
+            recbank.putFloat("py", ipart, rand.nextFloat());
+            recbank.putFloat("pz", ipart, 1 + 5*rand.nextFloat());
+            recbank.putFloat("vz", ipart, -10 + 20*rand.nextFloat());
+            recbank.putByte("charge", ipart, (byte) 1);
+            recbank.putFloat("beta", ipart, rand.nextFloat());
+            recbank.putFloat("chi2pid", ipart, -3 + 6*rand.nextFloat());
+            recbank.putShort("status", ipart, (short) 2000);
+        }
+        trajbank = new Bank(trajschema, NTRAJ);
+        for(int itraj=0; itraj<NTRAJ; itraj++) {
+            trajbank.putShort("pindex", itraj, (short) (itraj % NPARTICLES));
+            trajbank.putByte("detector", itraj, (byte) 6);
+            trajbank.putByte("layer", itraj, (byte) (6 + 12*(itraj/NPARTICLES % 3)));
+            trajbank.putFloat("x", itraj, 100*rand.nextFloat());
+            trajbank.putFloat("y", itraj, 100*rand.nextFloat());
+            trajbank.putFloat("z", itraj, 200 + 200*rand.nextFloat());
+        }
+    }
+
+
+
+    @Benchmark
+    public void particleByName(Blackhole bh) {
+        for(int ipart=0; ipart<recbank.getRows(); ipart++) {
+            bh.consume(recbank.getInt("pid", ipart));
+            bh.consume(recbank.getFloat("px", ipart));
+            bh.consume(recbank.getFloat("py", ipart));
+            bh.consume(recbank.getFloat("pz", ipart));
+            bh.consume(recbank.getFloat("vz", ipart));
+            bh.consume(recbank.getFloat("beta", ipart));
+            bh.consume(recbank.getFloat("chi2pid", ipart));
+            bh.consume(recbank.getShort("status", ipart));
+        }
+    }
+
+
+
+    @Benchmark
+    public void particleByColumns(Blackhole bh) {
+        Columns.Particle col = Columns.Particle.of(recbank);
+        for(int ipart=0; ipart<recbank.getRows(); ipart++) {
+            bh.consume(recbank.getInt(col.pid, ipart));
+            bh.consume(recbank.getFloat(col.px, ipart));
+            bh.consume(recbank.getFloat(col.py, ipart));
+            bh.consume(recbank.getFloat(col.pz, ipart));
+            bh.consume(recbank.getFloat(col.vz, ipart));
+            bh.consume(recbank.getFloat(col.beta, ipart));
+            bh.consume(recbank.getFloat(col.chi2pid, ipart));
+            bh.consume(recbank.getShort(col.status, ipart));
+        }
+    }
+
+
+
+    @Benchmark
+    public void trajByName(Blackhole bh) {
+        for(int itraj=0; itraj<trajbank.getRows(); itraj++) {
+            bh.consume(trajbank.getShort("pindex", itraj));
+            bh.consume(trajbank.getByte("detector", itraj));
+            bh.consume(trajbank.getByte("layer", itraj));
+            bh.consume(trajbank.getFloat("x", itraj));
+            bh.consume(trajbank.getFloat("y", itraj));
+            bh.consume(trajbank.getFloat("z", itraj));
+        }
+    }
+
+
+
+    @Benchmark
+    public void trajByColumns(Blackhole bh) {
+        Columns.Traj col = Columns.Traj.of(trajbank);
+        for(int itraj=0; itraj<trajbank.getRows(); itraj++) {
+            bh.consume(trajbank.getShort(col.pindex, itraj));
+            bh.consume(trajbank.getByte(col.detector, itraj));
+            bh.consume(trajbank.getByte(col.layer, itraj));
+            bh.consume(trajbank.getFloat(col.x, itraj));
+            bh.consume(trajbank.getFloat(col.y, itraj));
+            bh.consume(trajbank.getFloat(col.z, itraj));
+        }
+    }
+
+
+
+    @Benchmark
+    public EventIndex eventIndex() {
+        return new EventIndex(null, null, trajbank);
+    }
+
+}
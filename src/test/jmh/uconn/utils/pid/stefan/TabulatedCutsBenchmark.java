@@ -0,0 +1,68 @@
+package uconn.utils.pid.stefan;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabulatedCutsBenchmark {
+    /*
+     * Exact against MomentumGrid tabulated version of the batch pion chi2pid cut on random particles.
+     * The table is switched globally, each benchmark sets the switch it needs.
+     */
+
+    private static final int NPARTICLES = 10000; ///< particles in the batch
+
+    private int[] pid = new int[NPARTICLES];
+    private float[] p = new float[NPARTICLES];
+    private float[] chi2pid = new float[NPARTICLES];
+    private boolean[] pass = new boolean[NPARTICLES];
+
+
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(12345);
+        for(int i=0; i<NPARTICLES; i++) {
+            pid[i] = rand.nextBoolean() ? 211 : -211;
+            p[i] = (float) (0.5 + 9.5*rand.nextDouble());
+            chi2pid[i] = (float) (-4 + 8*rand.nextDouble());
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean[] chi2pidExact() {
+        HadronCuts.setTabulatedChi2pid(false);
+        Arrays.fill(pass, true);
+        HadronCuts.Chi2pid_cut(NPARTICLES, chi2pid, p, pid, pass);
+        return pass;
+    }
+
+
+
+    @Benchmark
+    public boolean[] chi2pidTabulated() {
+        HadronCuts.setTabulatedChi2pid(true);
+        Arrays.fill(pass, true);
+        HadronCuts.Chi2pid_cut(NPARTICLES, chi2pid, p, pid, pass);
+        return pass;
+    }
+
+}
@@ -0,0 +1,73 @@
+package uconn.utils.pid.stefan;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorCutsBenchmark {
+    /*
+     * Batch DC XY fiducial cut of ElectronCuts against VectorCuts on random particles.
+     * The Vector API version lives in the Java 17 layer of the multi-release jar, which is not seen
+     * from target/classes, so to compare both run the benchmarks with the packaged jar on Java 17+:
+     * java --add-modules jdk.incubator.vector -cp uconn-java-utils.jar:target/test-classes:<jmh jars> org.openjdk.jmh.Main VectorCutsBenchmark
+     */
+
+    private static final int NPARTICLES = 10000; ///< particles in the batch
+    private static final int[] PIDS = {11, 2212, 211, -211, 321, -321, 22}; ///< pids for DC fiducial cut, 22 has no parameters
+
+    private int[] sector = new int[NPARTICLES];
+    private int[] pid = new int[NPARTICLES];
+    private float[] x = new float[NPARTICLES];
+    private float[] y = new float[NPARTICLES];
+    private boolean[] pass = new boolean[NPARTICLES];
+
+
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(12345);
+        for(int i=0; i<NPARTICLES; i++) {
+            sector[i] = rand.nextInt(7);
+            pid[i] = PIDS[rand.nextInt(PIDS.length)];
+            double phi = Math.toRadians(60*(sector[i]-1) + 60*(rand.nextDouble()-0.5));
+            double r = 20 + 200*rand.nextDouble();
+            x[i] = (float) (r*Math.cos(phi));
+            y[i] = (float) (r*Math.sin(phi));
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean[] dcFiducialScalar() {
+        Arrays.fill(pass, true);
+        ElectronCuts.DC_fiducial_cut_XY(NPARTICLES, sector, 2, x, y, pid, false, pass);
+        return pass;
+    }
+
+
+
+    @Benchmark
+    public boolean[] dcFiducialVectorCuts() {
+        Arrays.fill(pass, true);
+        VectorCuts.DC_fiducial_cut_XY(NPARTICLES, sector, 2, x, y, pid, false, pass);
+        return pass;
+    }
+
+}